@@ -0,0 +1,87 @@
+package com.extention.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Runs SSE relays off the request thread; bounded so a burst of streams can't grow threads without limit
+    @Bean
+    public ThreadPoolTaskExecutor aiStreamExecutor(
+            @Value("${application.ai.stream.max-concurrent:32}") int maxConcurrent
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(maxConcurrent * 2);
+        executor.setThreadNamePrefix("ai-stream-");
+        // Relays call Gemini on behalf of the requesting user (fair scheduling is per user)
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        executor.initialize();
+        return executor;
+    }
+
+    // Map phase of chunked summarization; callers bound their own fan-out, this bounds the total
+    @Bean
+    public ThreadPoolTaskExecutor aiChunkExecutor(
+            @Value("${application.ai.chunking.pool-size:16}") int poolSize
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize * 16);
+        executor.setThreadNamePrefix("ai-chunk-");
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        executor.initialize();
+        return executor;
+    }
+
+    // CSE fan-out of the source-finding query plan; each request keeps at most `parallelism` calls in it
+    @Bean
+    public ThreadPoolTaskExecutor searchExecutor(
+            @Value("${application.search.fanout.pool-size:32}") int poolSize
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize * 8);
+        executor.setThreadNamePrefix("search-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Page fetches for source verification; a request stops waiting at its deadline and cancels what's left
+    @Bean
+    public ThreadPoolTaskExecutor verifyExecutor(
+            @Value("${application.search.verify.pool-size:16}") int poolSize
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize * 4);
+        executor.setThreadNamePrefix("verify-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Quiz generation jobs (page fetch + Gemini); requests only enqueue, so a burst can't hold Tomcat threads
+    @Bean
+    public ThreadPoolTaskExecutor quizJobExecutor(
+            @Value("${application.quiz.jobs.pool-size:8}") int poolSize,
+            @Value("${application.quiz.jobs.queue-capacity:64}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("quiz-job-");
+        // Gemini calls are fair-scheduled per user, so jobs carry the submitter's security context
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package com.extention.backend.config;
+
+import com.extention.backend.utils.UpstreamGovernor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(GovernorProperties.class)
+public class GovernorConfig {
+
+    @Bean
+    public UpstreamGovernor geminiGovernor(GovernorProperties props, MeterRegistry meterRegistry) {
+        return new UpstreamGovernor("gemini", props.gemini(), meterRegistry);
+    }
+
+    @Bean
+    public UpstreamGovernor searchGovernor(GovernorProperties props, MeterRegistry meterRegistry) {
+        return new UpstreamGovernor("search", props.search(), meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.extention.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Quota governor settings per upstream (application.upstream.*)
+@ConfigurationProperties(prefix = "application.upstream")
+public record GovernorProperties(
+        @DefaultValue Limits gemini,
+        @DefaultValue Limits search
+) {
+    public record Limits(
+            @DefaultValue("60") long requestsPerMinute,
+            @DefaultValue("0") long tokensPerMinute,      // 0 = no token budget
+            @DefaultValue("64") int maxWaiters,
+            @DefaultValue("PT20S") Duration maxWait,
+            @DefaultValue("3") int maxAttempts,
+            @DefaultValue("PT0.5S") Duration baseBackoff,
+            @DefaultValue("PT8S") Duration maxBackoff,
+            @DefaultValue("5") int failureThreshold,
+            @DefaultValue("PT30S") Duration openDuration
+    ) {}
+}
@@ -0,0 +1,21 @@
+package com.extention.backend.config;
+
+import com.extention.backend.utils.SegmentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class PageCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public SegmentStore pageStore(
+            @Value("${application.pages.cache.dir:${java.io.tmpdir}/pagegenie/pages}") String dir,
+            @Value("${application.pages.cache.segment-bytes:67108864}") int segmentBytes,
+            @Value("${application.pages.cache.max-disk-bytes:536870912}") long maxDiskBytes
+    ) {
+        return new SegmentStore(Path.of(dir), segmentBytes, maxDiskBytes);
+    }
+}
@@ -0,0 +1,45 @@
+package com.extention.backend.config;
+
+import com.extention.backend.entity.Quiz;
+import com.extention.backend.repository.QuizRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Fills Quiz.questionsCount for rows written before the column existed; a no-op once they are all counted
+@Component
+@RequiredArgsConstructor
+public class QuizBackfillRunner implements ApplicationRunner {
+
+    private final QuizRepository quizRepository;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Quiz> batch;
+        try {
+            while (!(batch = quizRepository.findTop500ByQuestionsCountIsNullOrderByIdAsc()).isEmpty()) {
+                for (Quiz q : batch) q.setQuestionsCount(count(q.getQuestionsJson()));
+                quizRepository.saveAll(batch);
+            }
+        } catch (Exception ignored) {
+            // Startup must not fail on the backfill; uncounted rows list as 0 and are retried next start
+        }
+    }
+
+    // Unreadable JSON counts as 0 so the row is not picked up again
+    private int count(String json) {
+        if (json == null) return 0;
+        try {
+            JsonNode questions = mapper.readTree(json).path("questions");
+            return questions.isArray() ? questions.size() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -1,14 +1,116 @@
 package com.extention.backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.util.StringUtils;
 
+import java.util.List;
+
+/**
+ * One pooled, keep-alive HTTP client shared by every upstream (Gemini, Custom Search, page fetches).
+ * Connections are reused across calls so the TLS handshake is paid once per pooled connection,
+ * not once per request. Each upstream gets its own per-host cap and timeouts.
+ */
 @Configuration
+@EnableConfigurationProperties(UpstreamHttpProperties.class)
 public class RestTemplateConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager upstreamConnectionManager(UpstreamHttpProperties props,
+                                                                       MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager cm = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(props.maxTotal())
+                .setMaxConnPerRoute(props.pages().maxPerRoute())
+                .setConnectionConfigResolver(route -> connectionConfig(upstreamFor(props, route)))
+                .build();
+
+        for (UpstreamHttpProperties.Upstream u : List.of(props.gemini(), props.search())) {
+            if (StringUtils.hasText(u.host())) {
+                cm.setMaxPerRoute(new HttpRoute(new HttpHost("https", u.host(), 443), null, true), u.maxPerRoute());
+            }
+        }
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(cm, "upstream").bindTo(meterRegistry);
+        return cm;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient upstreamHttpClient(PoolingHttpClientConnectionManager upstreamConnectionManager,
+                                                  UpstreamHttpProperties props) {
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(props.idleEvict().toMillis()))
+                .build();
+    }
+
+    // Gemini
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient upstreamHttpClient, UpstreamHttpProperties props) {
+        return new RestTemplate(requestFactory(upstreamHttpClient, props.gemini()));
+    }
+
+    // Google Custom Search
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestClient searchRestClient(CloseableHttpClient upstreamHttpClient, UpstreamHttpProperties props) {
+        return RestClient.builder()
+                .requestFactory(requestFactory(upstreamHttpClient, props.search()))
+                .build();
     }
 
+    // Arbitrary article pages (ContentExtractor)
+    @Bean
+    public RestClient pageRestClient(CloseableHttpClient upstreamHttpClient, UpstreamHttpProperties props) {
+        return RestClient.builder()
+                .requestFactory(requestFactory(upstreamHttpClient, props.pages()))
+                .build();
+    }
+
+    // Page fetches for source verification: same pool, but reads time out at the verify deadline
+    @Bean
+    public RestClient verifyPageRestClient(CloseableHttpClient upstreamHttpClient, UpstreamHttpProperties props) {
+        return RestClient.builder()
+                .requestFactory(requestFactory(upstreamHttpClient, props.verify()))
+                .build();
+    }
+
+    private static HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient client,
+                                                                         UpstreamHttpProperties.Upstream u) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client);
+        factory.setConnectionRequestTimeout(u.poolTimeout());
+        factory.setReadTimeout(u.readTimeout());
+        return factory;
+    }
+
+    // Connect timeout is a connection-level setting in HttpClient 5, so it is resolved per target host
+    private static ConnectionConfig connectionConfig(UpstreamHttpProperties.Upstream u) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(u.connectTimeout().toMillis()))
+                .setSocketTimeout(Timeout.ofMilliseconds(u.readTimeout().toMillis()))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build();
+    }
+
+    private static UpstreamHttpProperties.Upstream upstreamFor(UpstreamHttpProperties props, HttpRoute route) {
+        String host = route.getTargetHost().getHostName();
+        if (host.equalsIgnoreCase(props.gemini().host())) return props.gemini();
+        if (host.equalsIgnoreCase(props.search().host())) return props.search();
+        return props.pages();
+    }
 }
@@ -0,0 +1,19 @@
+package com.extention.backend.config;
+
+import com.extention.backend.utils.FairScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SchedulerProperties.class)
+public class SchedulerConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public FairScheduler llmScheduler(SchedulerProperties props, MeterRegistry meterRegistry) {
+        SchedulerProperties.Llm llm = props.llm();
+        return new FairScheduler("llm", llm.workers(), llm.quantum(), llm.maxQueueDepth(),
+                llm.defaultWeight(), llm.weights(), meterRegistry);
+    }
+}
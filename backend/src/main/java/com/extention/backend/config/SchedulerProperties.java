@@ -0,0 +1,20 @@
+package com.extention.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+// Per-user fair scheduling of LLM work (application.scheduler.llm.*)
+@ConfigurationProperties(prefix = "application.scheduler")
+public record SchedulerProperties(
+        @DefaultValue Llm llm
+) {
+    public record Llm(
+            @DefaultValue("16") int workers,              // concurrent Gemini calls across all users
+            @DefaultValue("2000") long quantum,           // estimated tokens credited per round, times weight
+            @DefaultValue("16") int maxQueueDepth,        // queued calls per user before 429
+            @DefaultValue("1") int defaultWeight,
+            Map<String, Integer> weights                  // username -> weight
+    ) {}
+}
@@ -3,6 +3,7 @@ package com.extention.backend.config;
 import com.extention.backend.filter.JWTAuthenticationFilter;
 import com.extention.backend.filter.JWTAuthorizationFilter;
 import com.extention.backend.utils.JWTUtil;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,6 +44,8 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // SSE responses complete on an async dispatch; the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
                         .requestMatchers(
                                 "/api/v1/auth/**",
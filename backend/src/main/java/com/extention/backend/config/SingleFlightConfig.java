@@ -0,0 +1,22 @@
+package com.extention.backend.config;
+
+import com.extention.backend.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SingleFlightConfig {
+
+    // Keyed by prompt cache key (see LocalAiService.keyFor)
+    @Bean
+    public SingleFlight geminiSingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight("gemini", meterRegistry);
+    }
+
+    // Keyed by the Custom Search request URL
+    @Bean
+    public SingleFlight searchSingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight("search", meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.extention.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Per-upstream pool and timeout settings for the shared HTTP client (application.http.*)
+@ConfigurationProperties(prefix = "application.http")
+public record UpstreamHttpProperties(
+        @DefaultValue("100") int maxTotal,
+        @DefaultValue("PT30S") Duration idleEvict,
+        @DefaultValue Upstream gemini,
+        @DefaultValue Upstream search,
+        @DefaultValue Upstream pages,
+        @DefaultValue Upstream verify
+) {
+    // host may be empty for "any host" (page fetches); its maxPerRoute becomes the pool default.
+    // verify reuses the pages connections, so only its read and pool timeouts apply.
+    public record Upstream(
+            @DefaultValue("") String host,
+            @DefaultValue("10") int maxPerRoute,
+            @DefaultValue("PT5S") Duration connectTimeout,
+            @DefaultValue("PT30S") Duration readTimeout,
+            @DefaultValue("PT5S") Duration poolTimeout
+    ) {}
+}
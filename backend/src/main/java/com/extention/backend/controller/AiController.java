@@ -4,12 +4,27 @@ import com.extention.backend.entity.Action;
 import com.extention.backend.request.AiRequest;
 import com.extention.backend.response.AiResponse;
 import com.extention.backend.service.AiService;
+import com.extention.backend.service.OpsLogService;
+import com.extention.backend.utils.AuthUserUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequiredArgsConstructor
@@ -17,9 +32,73 @@ import org.springframework.web.bind.annotation.RestController;
 public class AiController {
 
     private final AiService aiService;
+    private final OpsLogService opsLogService;
+    private final ThreadPoolTaskExecutor aiStreamExecutor;
+
+    @Value("${application.ai.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
 
     @PostMapping
     public ResponseEntity<ExecuteResponse> execute(@RequestBody ExecuteRequest req) {
+        AiResponse aiResponse = aiService.process(toAiRequest(req));
+        return ResponseEntity.ok(new ExecuteResponse(aiResponse.getResult()));
+    }
+
+    // Same request as execute; emits "chunk" events as Gemini produces text, then "done" (or "error")
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestBody ExecuteRequest req) {
+        AiRequest aiRequest = toAiRequest(req);
+        String username = AuthUserUtil.requireUsername();
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+
+        try {
+            aiStreamExecutor.execute(() -> relay(emitter, closed, aiRequest, username));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent streams");
+        }
+        return emitter;
+    }
+
+    private void relay(SseEmitter emitter, AtomicBoolean closed, AiRequest aiRequest, String username) {
+        try {
+            AiResponse out = aiService.stream(aiRequest, chunk -> {
+                // Throwing here aborts the upstream read, which cancels the Gemini call
+                if (closed.get()) throw new CancellationException("client disconnected");
+                try {
+                    emitter.send(SseEmitter.event().name("chunk").data(chunk));
+                } catch (IOException e) {
+                    closed.set(true);
+                    throw new CancellationException("client disconnected");
+                }
+            });
+            opsLogService.saveFromPayload(username, opsPayload(aiRequest, out.getResult()));
+            emitter.send(SseEmitter.event().name("done").data(Map.of("fromLocal", out.isFromLocal())));
+            emitter.complete();
+        } catch (Exception e) {
+            if (closed.get()) return;
+            try {
+                emitter.send(SseEmitter.event().name("error").data(Map.of("message", String.valueOf(e.getMessage()))));
+            } catch (IOException ignored) {}
+            emitter.complete();
+        }
+    }
+
+    private Map<String, Object> opsPayload(AiRequest req, String output) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", req.action().name());
+        payload.put("targetLang", req.targetLang());
+        payload.put("input", req.text());
+        payload.put("output", output);
+        payload.put("streamed", true);
+        return payload;
+    }
+
+    private AiRequest toAiRequest(ExecuteRequest req) {
         Action action = toAction(req.action());
         if (action == null) {
             throw new IllegalArgumentException("Unsupported operation: " + req.action());
@@ -29,9 +108,7 @@ public class AiController {
         boolean citeSources = Boolean.TRUE.equals(req.citeSources());
         boolean structured = Boolean.TRUE.equals(req.structured());
 
-        AiRequest aiRequest = new AiRequest(req.text(), action, req.targetLang(), persona, citeSources, structured);
-        AiResponse aiResponse = aiService.process(aiRequest);
-        return ResponseEntity.ok(new ExecuteResponse(aiResponse.getResult()));
+        return new AiRequest(req.text(), action, req.targetLang(), persona, citeSources, structured);
     }
 
     private Action toAction(String operation) {
@@ -51,4 +128,4 @@ public class AiController {
     // Structured flag + persona + citeSources
     public record ExecuteRequest(String action, String text, String targetLang, String persona, Boolean citeSources, Boolean structured) {}
     public record ExecuteResponse(String output) {}
-}
\ No newline at end of file
+}
@@ -30,7 +30,8 @@ public class CloudSearchController {
                 req.getText(),
                 req.getSourceUrl(),
                 req.getPersona(),
-                size
+                size,
+                Boolean.TRUE.equals(req.getVerify())
         );
         return ResponseEntity.ok(new FindSourcesResponse(items));
     }
@@ -2,16 +2,25 @@ package com.extention.backend.controller;
 
 import com.extention.backend.entity.Quiz;
 import com.extention.backend.repository.QuizAttemptRepository;
+import com.extention.backend.response.AttemptDto;
+import com.extention.backend.response.QuizJobStatus;
+import com.extention.backend.service.QuizJobService;
 import com.extention.backend.service.serviceImpl.QuizServiceImpl;
 import com.extention.backend.utils.AuthUserUtil;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -21,19 +30,21 @@ public class QuizController {
 
     private final QuizServiceImpl quizService;
     private final QuizAttemptRepository attemptRepository;
-    private final ObjectMapper objectMapper;
+    private final QuizJobService quizJobService;
 
-    public record AttemptDto(Long id, Long quizId, int score, int questionsCount, String articleTitle, Instant createdAt) {}
+    @Value("${application.quiz.jobs.events-timeout-ms:300000}")
+    private long jobEventsTimeoutMs;
 
-    public record GenerateRequest(String url) {}
+    // force: skip reuse of an existing quiz for the same content and always call Gemini
+    public record GenerateRequest(String url, Boolean force) {}
     public record GenerateResponse(long id, String openUrl) {}
 
-    public record GenerateFromTextRequest(String text, String title, String sourceUrl) {}
+    public record GenerateFromTextRequest(String text, String title, String sourceUrl, Boolean force) {}
     public record GenerateFromTextResponse(Long id) {}
 
     @PostMapping("/generate-from-text")
     public ResponseEntity<GenerateFromTextResponse> generate(@RequestBody GenerateFromTextRequest req) {
-        Long id = quizService.generateFromText(req.text(), req.title(), req.sourceUrl());
+        Long id = quizService.generateFromText(req.text(), req.title(), req.sourceUrl(), Boolean.TRUE.equals(req.force()));
         return ResponseEntity.ok(new GenerateFromTextResponse(id));
     }
 
@@ -43,11 +54,55 @@ public class QuizController {
         if (req.url() == null || req.url().isBlank()) {
             return ResponseEntity.badRequest().build();
         }
-        Quiz quiz = quizService.generateFromUrl(username, req.url());
+        Quiz quiz = quizService.generateFromUrl(username, req.url(), Boolean.TRUE.equals(req.force()), stage -> {}, () -> {});
         String openUrl = "/quiz/" + quiz.getId();
         return ResponseEntity.ok(new GenerateResponse(quiz.getId(), openUrl));
     }
 
+    // Asynchronous variant of /generate: 202 with the job, then poll /jobs/{id} or follow /jobs/{id}/events
+    @PostMapping("/jobs")
+    public ResponseEntity<QuizJobStatus> submitJob(@RequestBody GenerateRequest req) {
+        String username = AuthUserUtil.requireUsername();
+        if (req.url() == null || req.url().isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        QuizJobStatus job = quizJobService.submit(username, req.url(), Boolean.TRUE.equals(req.force()));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/quiz/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<QuizJobStatus> job(@PathVariable String jobId) {
+        String username = AuthUserUtil.requireUsername();
+        return ResponseEntity.of(quizJobService.status(username, jobId));
+    }
+
+    // Emits a "stage" event with the job status on every change; completes after SAVED, FAILED or CANCELLED
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter jobEvents(@PathVariable String jobId) {
+        String username = AuthUserUtil.requireUsername();
+        SseEmitter emitter = new SseEmitter(jobEventsTimeoutMs);
+        Runnable unsubscribe = quizJobService.subscribe(username, jobId, status -> {
+            try {
+                emitter.send(SseEmitter.event().name("stage").data(status));
+                if (status.stage().isTerminal()) emitter.complete();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job"));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<QuizJobStatus> cancelJob(@PathVariable String jobId) {
+        String username = AuthUserUtil.requireUsername();
+        return ResponseEntity.of(quizJobService.cancel(username, jobId));
+    }
+
     public record SubmitRequest(int[] answers) {}
     public record SubmitResponse(long attemptId, int score) {}
 
@@ -59,30 +114,9 @@ public class QuizController {
     }
 
     @GetMapping("/attempts/recent")
-    @Transactional(readOnly=true)
     public ResponseEntity<List<AttemptDto>> recent() {
         String username = AuthUserUtil.requireUsername();
-        var res = attemptRepository.findTop20ByUsernameOrderByCreatedAtDesc(username);
-        var list = res.stream()
-                .map(a -> {
-                    Quiz q = a.getQuiz();
-                    int count = 0;
-                    String title = "Quiz";
-                    if (q != null) {
-                        title = q.getArticleTitle() != null ? q.getArticleTitle() : title;
-                        try {
-                            String jq = q.getQuestionsJson();
-                            if (jq != null) {
-                                JsonNode node = objectMapper.readTree(jq);
-                                count = node.path("questions").isArray() ? node.path("questions").size() : 0;
-                            }
-                        } catch (Exception ignore) {}
-                    }
-                    assert a.getQuiz() != null;
-                    return new AttemptDto(a.getId(),a.getQuiz().getId(), a.getScore(), count, title, a.getCreatedAt());
-                })
-                .toList();
-        return ResponseEntity.ok(list);
+        return ResponseEntity.ok(attemptRepository.findRecent(username, Limit.of(20)));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,38 @@
+package com.extention.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "ai_response_cache",
+        indexes = {
+                @Index(name = "ix_ai_response_cache_stored_at", columnList = "storedAt")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AiResponseCacheEntry {
+    // SHA-256 hex of model + normalized prompt
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+
+    @Column(length = 64)
+    private String model;
+
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    // Set explicitly (not @CreationTimestamp) so a re-store of an expired key refreshes it
+    @Column(nullable = false)
+    private Instant storedAt;
+}
@@ -9,7 +9,12 @@ import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 @Entity
-@Table(name = "quizzes")
+@Table(
+        name = "quizzes",
+        indexes = {
+                @Index(name = "ix_quizzes_content_hash", columnList = "contentHash")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +38,16 @@ public class Quiz {
     @Column(columnDefinition = "TEXT")
     private String questionsJson;
 
+    // Filled at generation time so listings don't parse questionsJson; null only until the startup backfill runs
+    private Integer questionsCount;
+
+    // correctIndex per question, packed by AnswerKeys (bytea); filled lazily for rows that predate it
+    private byte[] answerKey;
+
+    // SHA-256 hex of model + normalized title + normalized source text; quizzes with the same hash are interchangeable
+    @Column(length = 64)
+    private String contentHash;
+
     @CreationTimestamp
     private Instant createdAt;
 }
\ No newline at end of file
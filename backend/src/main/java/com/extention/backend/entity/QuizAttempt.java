@@ -22,7 +22,10 @@ public class QuizAttempt {
 
     private int score; // 0..questionsCount
 
-    // JSON: {"answers":[1,0,2,...],"correct":[1,3,0,...]}
+    // Submitted indexes, packed by AnswerKeys (bytea); the key itself stays on the quiz
+    private byte[] answers;
+
+    // Legacy rows only: {"answers":[1,0,2,...],"correct":[1,3,0,...]}
     @Lob
     private String answersJson;
 
@@ -0,0 +1,39 @@
+package com.extention.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "search_cache",
+        indexes = {
+                @Index(name = "ix_search_cache_expires_at", columnList = "expiresAt")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchCacheEntry {
+    // SHA-256 hex of query + num + lr + gl
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    @Column(columnDefinition = "TEXT")
+    private String query;
+
+    // JSON array of SearchHit; "[]" for a cached empty result
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    @Column(columnDefinition = "TEXT")
+    private String hitsJson;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
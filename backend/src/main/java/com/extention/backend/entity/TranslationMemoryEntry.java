@@ -0,0 +1,47 @@
+package com.extention.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "translation_memory",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "ux_translation_memory_hash_lang", columnNames = {"sourceHash", "targetLang"})
+        },
+        indexes = {
+                @Index(name = "ix_translation_memory_stored_at", columnList = "storedAt")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranslationMemoryEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 hex of model + persona + normalized source segment
+    @Column(length = 64, nullable = false)
+    private String sourceHash;
+
+    @Column(length = 32, nullable = false)
+    private String targetLang;
+
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    @Column(columnDefinition = "TEXT")
+    private String sourceText;
+
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    @Column(columnDefinition = "TEXT")
+    private String translation;
+
+    @Column(nullable = false)
+    private Instant storedAt;
+}
@@ -0,0 +1,22 @@
+package com.extention.backend.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+// Raised by the upstream governor instead of letting quota/outage errors surface as opaque 500s
+@Getter
+public abstract class UpstreamException extends RuntimeException {
+    private final String upstream;
+    private final Duration retryAfter;
+
+    protected UpstreamException(String upstream, Duration retryAfter, String message, Throwable cause) {
+        super(message, cause);
+        this.upstream = upstream;
+        this.retryAfter = retryAfter;
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,39 @@
+package com.extention.backend.exception;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// Ordered ahead of the catch-all advices so governor rejections keep their status and retry hint
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UpstreamExceptionHandler {
+
+    @ExceptionHandler(UpstreamThrottledException.class)
+    public ResponseEntity<Map<String, Object>> handleThrottled(UpstreamThrottledException ex) {
+        return withRetryHint(HttpStatus.TOO_MANY_REQUESTS, "rate_limited", ex);
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnavailable(UpstreamUnavailableException ex) {
+        return withRetryHint(HttpStatus.SERVICE_UNAVAILABLE, "upstream_unavailable", ex);
+    }
+
+    private static ResponseEntity<Map<String, Object>> withRetryHint(HttpStatus status, String code, UpstreamException ex) {
+        long seconds = ex.retryAfterSeconds();
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body(Map.of(
+                        "code", code,
+                        "message", ex.getMessage(),
+                        "upstream", ex.getUpstream(),
+                        "retryAfterSeconds", seconds
+                ));
+    }
+}
@@ -0,0 +1,10 @@
+package com.extention.backend.exception;
+
+import java.time.Duration;
+
+// Over quota (locally or upstream 429) — maps to 429 Too Many Requests
+public class UpstreamThrottledException extends UpstreamException {
+    public UpstreamThrottledException(String upstream, Duration retryAfter, Throwable cause) {
+        super(upstream, retryAfter, upstream + " is rate limited, retry later", cause);
+    }
+}
@@ -0,0 +1,10 @@
+package com.extention.backend.exception;
+
+import java.time.Duration;
+
+// Upstream down or circuit open — maps to 503 Service Unavailable
+public class UpstreamUnavailableException extends UpstreamException {
+    public UpstreamUnavailableException(String upstream, Duration retryAfter, Throwable cause) {
+        super(upstream, retryAfter, upstream + " is unavailable, retry later", cause);
+    }
+}
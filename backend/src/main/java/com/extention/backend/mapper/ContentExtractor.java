@@ -1,29 +1,346 @@
 package com.extention.backend.mapper;
 
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.safety.Safelist;
+import com.extention.backend.service.PageCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Component
 public class ContentExtractor {
 
+    private static final String USER_AGENT = "PageGenieBot/1.0 (+https://example.com)";
+    private static final int SNIFF_BYTES = 4096;
+    private static final int RAW_TEXT_FACTOR = 3;
+    private static final Pattern META_CHARSET =
+            Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final RestClient http;
+    private final RestClient verifyHttp;
+    private final PageCacheService pageCache;
+    private final long maxBytes;
+    private final long maxPdfBytes;
+    private final int maxTextChars;
+
+    private final DistributionSummary bytesFetched;
+    private final Timer parseTime;
+    private final DistributionSummary pdfPages;
+    private final Counter truncatedByBytes;
+    private final Counter truncatedByText;
+    private final Counter cacheHits;
+    private final Counter cacheRevalidated;
+    private final Counter cacheMisses;
+
+    public ContentExtractor(
+            @Qualifier("pageRestClient") RestClient http,
+            @Qualifier("verifyPageRestClient") RestClient verifyHttp,
+            PageCacheService pageCache,
+            MeterRegistry meterRegistry,
+            @Value("${application.pages.max-bytes:2097152}") long maxBytes,
+            @Value("${application.pages.max-pdf-bytes:20971520}") long maxPdfBytes,
+            @Value("${application.pages.max-text-chars:60000}") int maxTextChars
+    ) {
+        this.http = http;
+        this.verifyHttp = verifyHttp;
+        this.pageCache = pageCache;
+        this.maxBytes = maxBytes;
+        this.maxPdfBytes = maxPdfBytes;
+        this.maxTextChars = maxTextChars;
+        this.bytesFetched = DistributionSummary.builder("page.fetch.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.parseTime = Timer.builder("page.parse").register(meterRegistry);
+        this.pdfPages = DistributionSummary.builder("page.pdf.pages")
+                .description("PDF pages stripped before the text budget was reached")
+                .register(meterRegistry);
+        this.truncatedByBytes = Counter.builder("page.fetch.truncated")
+                .tag("reason", "byte_cap")
+                .register(meterRegistry);
+        this.truncatedByText = Counter.builder("page.fetch.truncated")
+                .tag("reason", "text_budget")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("page.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheRevalidated = Counter.builder("page.cache")
+                .tag("result", "revalidated")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("page.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
     public ExtractedContent extractFromUrl(String url) {
+        return extractFromUrl(url, maxTextChars);
+    }
+
+    // onResponse runs once the page is in hand (response headers received, or served from cache), before parsing
+    public ExtractedContent extractFromUrl(String url, Runnable onResponse) {
+        return extractFromUrl(url, maxTextChars, onResponse);
+    }
+
+    /**
+     * Fetches and extracts at most maxChars of text. A fresh page cache entry skips the network and parsing;
+     * a stale one is revalidated with If-None-Match/If-Modified-Since and reused on 304.
+     */
+    public ExtractedContent extractFromUrl(String url, int maxChars) {
+        return extractFromUrl(url, maxChars, () -> {}, http);
+    }
+
+    /**
+     * For callers on a short deadline (source verification): each read gives up after
+     * application.http.verify.read-timeout, and interrupting the calling thread stops the transfer.
+     */
+    public ExtractedContent extractForVerification(String url) {
+        return extractFromUrl(url, maxTextChars, () -> {}, verifyHttp);
+    }
+
+    private ExtractedContent extractFromUrl(String url, int maxChars, Runnable onResponse) {
+        return extractFromUrl(url, maxChars, onResponse, http);
+    }
+
+    private ExtractedContent extractFromUrl(String url, int maxChars, Runnable onResponse, RestClient client) {
+        // Pages are cached at the default budget, so larger requests go straight to the network
+        if (maxChars > maxTextChars) return fetch(client, url, null, maxChars, onResponse).content();
+
+        String key = pageCache.keyFor(url);
+        PageCacheService.CachedPage cached = pageCache.lookup(key).orElse(null);
+        if (cached != null && pageCache.isFresh(cached)) {
+            cacheHits.increment();
+            onResponse.run();
+            return cut(new ExtractedContent(cached.title(), cached.text()), maxChars);
+        }
+
+        Fetched fetched = fetch(client, url, cached != null && cached.hasValidators() ? cached : null, maxTextChars, onResponse);
+        if (fetched.notModified()) {
+            cacheRevalidated.increment();
+            pageCache.store(key, cached.revalidatedAt(Instant.now()));
+            return cut(new ExtractedContent(cached.title(), cached.text()), maxChars);
+        }
+        cacheMisses.increment();
+        ExtractedContent content = fetched.content();
+        pageCache.store(key, new PageCacheService.CachedPage(content.title(), content.text(),
+                fetched.etag(), fetched.lastModified(), Instant.now()));
+        return cut(content, maxChars);
+    }
+
+    private record Fetched(ExtractedContent content, boolean notModified, String etag, String lastModified) {}
+
+    /**
+     * The body is read through a byte cap. HTML is parsed as it streams and the transfer is aborted once enough
+     * text is collected; PDFs (by content type or magic bytes) get a larger cap and are stripped page by page.
+     */
+    private Fetched fetch(RestClient client, String url, PageCacheService.CachedPage validators, int maxChars,
+                          Runnable onResponse) {
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("PageGenieBot/1.0 (+https://example.com)")
-                    .timeout(12000)
-                    .get();
-
-            String title = doc.title();
-            // Simple readable text approximation (you can swap for Boilerpipe/Readability)
-            String text = Jsoup.clean(doc.body().text(), Safelist.none());
-            return new ExtractedContent(title, text);
+            // Fetched over the shared pooled client (timeouts and per-host caps in application.http.pages)
+            return client.get()
+                    .uri(URI.create(url))
+                    .header(HttpHeaders.USER_AGENT, USER_AGENT)
+                    .accept(MediaType.TEXT_HTML, MediaType.APPLICATION_PDF, MediaType.ALL)
+                    .headers(h -> {
+                        if (validators == null) return;
+                        if (validators.etag() != null) h.setIfNoneMatch(validators.etag());
+                        if (validators.lastModified() != null) h.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                    })
+                    .exchange((request, response) -> {
+                        if (validators != null && response.getStatusCode().value() == 304) {
+                            onResponse.run();
+                            return new Fetched(null, true, null, null);
+                        }
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            throw new IOException("HTTP " + response.getStatusCode().value());
+                        }
+                        onResponse.run();
+                        HttpHeaders headers = response.getHeaders();
+                        MediaType type = headers.getContentType();
+                        boolean pdfType = type != null && type.isCompatibleWith(MediaType.APPLICATION_PDF);
+                        BoundedInputStream body = new BoundedInputStream(response.getBody(), pdfType ? maxPdfBytes : maxBytes);
+                        long started = System.nanoTime();
+                        try {
+                            BufferedInputStream in = new BufferedInputStream(body, SNIFF_BYTES);
+                            in.mark(PdfTextExtractor.MAGIC.length);
+                            byte[] head = in.readNBytes(PdfTextExtractor.MAGIC.length);
+                            in.reset();
+
+                            ExtractedContent content;
+                            // Servers often label PDFs application/octet-stream, so the magic bytes decide too
+                            if (pdfType || PdfTextExtractor.isPdf(head)) {
+                                body.limit(maxPdfBytes);
+                                PdfTextExtractor.Result pdf = PdfTextExtractor.extract(in, url, maxChars);
+                                pdfPages.record(pdf.pagesRead());
+                                if (pdf.truncated()) truncatedByText.increment();
+                                content = pdf.content();
+                            } else {
+                                Charset charset = sniffCharset(in, type);
+                                content = parse(new InputStreamReader(in, charset), url, maxChars);
+                            }
+                            return new Fetched(content, false, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+                        } finally {
+                            if (body.capped()) truncatedByBytes.increment();
+                            body.abortIfUnread();
+                            bytesFetched.record(body.count());
+                            parseTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                        }
+                    });
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch/extract content: " + e.getMessage(), e);
         }
     }
 
+    private static ExtractedContent cut(ExtractedContent content, int maxChars) {
+        if (content.text().length() <= maxChars) return content;
+        return new ExtractedContent(content.title(), content.text().substring(0, maxChars));
+    }
+
+    /**
+     * Block elements are emitted as they close: the scorer takes their text and density, then they are dropped so
+     * the DOM stays small. Boilerplate competes with the article for the budget, so parsing runs until a multiple
+     * of maxChars has been seen before the main content is selected and cut to maxChars.
+     */
+    ExtractedContent parse(Reader reader, String url, int maxChars) throws IOException {
+        String title = "";
+        MainContentScorer scorer = new MainContentScorer();
+        long rawBudget = (long) maxChars * RAW_TEXT_FACTOR;
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser()).parse(reader, url)) {
+            Iterator<Element> it = streamer.iterator();
+            while (it.hasNext()) {
+                Element el = it.next();
+                if ("title".equals(el.normalName())) {
+                    title = el.text();
+                    el.remove();
+                    continue;
+                }
+                if (!el.isBlock() || "html".equals(el.normalName())) continue;
+
+                scorer.accept(el);
+                el.remove();
+
+                if (scorer.rawChars() >= rawBudget) {
+                    truncatedByText.increment();
+                    streamer.stop();
+                    break;
+                }
+            }
+        }
+        return new ExtractedContent(title, scorer.text(maxChars));
+    }
+
+    // Content-Type charset, then BOM, then <meta charset> in the first few KB, else UTF-8
+    private static Charset sniffCharset(BufferedInputStream in, MediaType type) throws IOException {
+        in.mark(SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            in.skipNBytes(3);
+            return StandardCharsets.UTF_8;
+        }
+        if (head.length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            in.skipNBytes(2);
+            return StandardCharsets.UTF_16BE;
+        }
+        if (head.length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            in.skipNBytes(2);
+            return StandardCharsets.UTF_16LE;
+        }
+        if (type != null && type.getCharset() != null) return type.getCharset();
+
+        Matcher m = META_CHARSET.matcher(new String(head, StandardCharsets.ISO_8859_1));
+        if (m.find()) {
+            try {
+                return Charset.forName(m.group(1));
+            } catch (Exception ignored) {}
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Reports EOF after maxBytes. Closing an HttpClient response drains the rest of the body to reuse the
+     * connection, so when we stop early the connection is aborted instead. Socket reads ignore interrupts,
+     * so the interrupt flag is checked between reads to let a cancelled caller stop a slow transfer.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long max;
+        private long count;
+        private boolean eof;
+
+        BoundedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkInterrupted();
+            if (count >= max) return -1;
+            int b = super.read();
+            if (b < 0) eof = true;
+            else count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            checkInterrupted();
+            if (count >= max) return -1;
+            int n = super.read(buf, off, (int) Math.min(len, max - count));
+            if (n < 0) eof = true;
+            else count += n;
+            return n;
+        }
+
+        // PDFs are only recognised after the first bytes, and get a larger cap
+        void limit(long max) {
+            this.max = max;
+        }
+
+        long count() {
+            return count;
+        }
+
+        boolean capped() {
+            return !eof && count >= max;
+        }
+
+        private static void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Fetch cancelled");
+        }
+
+        void abortIfUnread() {
+            if (eof) return;
+            try {
+                if (in instanceof EofSensorInputStream sensor) sensor.abort();
+            } catch (IOException ignored) {}
+        }
+    }
+
     public record ExtractedContent(String title, String text) {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package com.extention.backend.mapper;
+
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Readability-style main-content selection over a streamed page.
+ * Each block element is handed in as it closes (while its ancestors are still attached): its text is kept,
+ * and its parent and grandparent are credited with a density score. At the end the best-scoring container
+ * (adjusted for link density) and its qualifying siblings decide which blocks make up the article.
+ * Navigation, footers, cookie banners and comment threads are dropped before scoring.
+ */
+final class MainContentScorer {
+
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "banner|breadcrumb|combx|comment|community|consent|cookie|disqus|extra|footer|gdpr|header|legends|menu"
+                    + "|modal|newsletter|pager|pagination|popup|related|remark|replies|rss|share|shoutbox|sidebar"
+                    + "|skyscraper|social|sponsor|subscribe|ad-break|agegate", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MAYBE = Pattern.compile("and|article|body|column|content|main|shadow",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern POSITIVE = Pattern.compile(
+            "article|body|content|entry|hentry|main|page|post|story|text|blog", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "comment|com-|contact|foot|footer|footnote|masthead|media|meta|promo|related|scroll|share|shoutbox"
+                    + "|sidebar|sponsor|shopping|tags|tool|widget|nav|menu", Pattern.CASE_INSENSITIVE);
+
+    // Paragraphs shorter than this still make it into the output but don't vote for a container
+    private static final int MIN_SCORED_CHARS = 25;
+    private static final double MAX_LINK_DENSITY = 0.5;
+    // Below this much selected text the page isn't article-shaped; fall back to every kept block
+    private static final int MIN_ARTICLE_CHARS = 250;
+
+    private static final class Candidate {
+        final Element parent;
+        double score;
+        int chars;
+        int linkChars;
+
+        Candidate(Element el, Element parent) {
+            this.parent = parent;
+            this.score = initialScore(el);
+        }
+
+        double adjusted() {
+            return chars == 0 ? score : score * (1 - (double) linkChars / chars);
+        }
+    }
+
+    private record Block(String text, boolean heading, double linkDensity, Candidate parent, Candidate grand) {}
+
+    private final Map<Element, Candidate> candidates = new IdentityHashMap<>();
+    private final List<Block> blocks = new ArrayList<>();
+    private int rawChars;
+
+    /** Takes a closed block element; the caller removes it from the tree afterwards. */
+    void accept(Element el) {
+        if ("head".equals(el.normalName()) || isBoilerplate(el)) return;
+
+        String text = el.text();
+        if (text.isBlank()) return;
+
+        int linkChars = 0;
+        for (Element a : el.getElementsByTag("a")) linkChars += a.text().length();
+        double linkDensity = (double) linkChars / text.length();
+
+        Element p = el.parent();
+        Element gp = p == null ? null : p.parent();
+        Candidate parent = p == null ? null : candidate(p);
+        Candidate grand = gp == null ? null : candidate(gp);
+
+        if (parent != null) {
+            parent.chars += text.length();
+            parent.linkChars += linkChars;
+        }
+        if (text.length() >= MIN_SCORED_CHARS) {
+            double score = 1 + count(text, ',') + Math.min(text.length() / 100, 3);
+            if (parent != null) parent.score += score;
+            if (grand != null) grand.score += score / 2;
+        }
+
+        blocks.add(new Block(text, isHeading(el), linkDensity, parent, grand));
+        rawChars += text.length();
+    }
+
+    int rawChars() {
+        return rawChars;
+    }
+
+    /** The article text, blocks separated by blank lines, cut at maxChars. */
+    String text(int maxChars) {
+        Candidate top = null;
+        for (Candidate c : candidates.values()) {
+            if (top == null || c.adjusted() > top.adjusted()) top = c;
+        }
+
+        StringBuilder out = new StringBuilder(Math.min(maxChars, 16_384));
+        if (top != null) {
+            double siblingThreshold = Math.max(10, top.adjusted() * 0.2);
+            for (Block b : blocks) {
+                if (b.linkDensity > MAX_LINK_DENSITY && !b.heading) continue;
+                if (inArticle(b, top, siblingThreshold) && !append(out, b.text, maxChars)) break;
+            }
+        }
+        if (out.length() < Math.min(MIN_ARTICLE_CHARS, maxChars)) {
+            out.setLength(0);
+            for (Block b : blocks) {
+                if (!append(out, b.text, maxChars)) break;
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean inArticle(Block b, Candidate top, double siblingThreshold) {
+        if (b.parent == top || b.grand == top) return true;
+        // Readability's sibling join: another container under the same parent that scores well on its own
+        return b.parent != null && top.parent != null && b.parent.parent == top.parent
+                && b.parent.adjusted() >= siblingThreshold;
+    }
+
+    private static boolean append(StringBuilder out, String text, int maxChars) {
+        if (!out.isEmpty()) out.append("\n\n");
+        out.append(text);
+        if (out.length() < maxChars) return true;
+        out.setLength(maxChars);
+        return false;
+    }
+
+    private Candidate candidate(Element el) {
+        return candidates.computeIfAbsent(el, e -> new Candidate(e, e.parent()));
+    }
+
+    // Ancestors are still attached when a block closes, so a <li> inside <nav> is caught here
+    private static boolean isBoilerplate(Element el) {
+        for (Element a = el; a != null && !"body".equals(a.normalName()); a = a.parent()) {
+            switch (a.normalName()) {
+                case "nav", "footer", "aside", "form", "noscript", "template", "dialog", "menu" -> {
+                    return true;
+                }
+                default -> {}
+            }
+            String marker = a.className() + " " + a.id();
+            if (marker.isBlank() || "article".equals(a.normalName()) || "main".equals(a.normalName())) continue;
+            if (UNLIKELY.matcher(marker).find() && !MAYBE.matcher(marker).find()) return true;
+        }
+        return false;
+    }
+
+    private static double initialScore(Element el) {
+        double score = switch (el.normalName()) {
+            case "article", "main" -> 10;
+            case "div" -> 5;
+            case "pre", "td", "blockquote" -> 3;
+            case "address", "ol", "ul", "dl", "dd", "dt", "li", "form" -> -3;
+            case "h1", "h2", "h3", "h4", "h5", "h6", "th" -> -5;
+            default -> 0;
+        };
+        String marker = el.className() + " " + el.id();
+        if (!marker.isBlank()) {
+            if (NEGATIVE.matcher(marker).find()) score -= 25;
+            if (POSITIVE.matcher(marker).find()) score += 25;
+        }
+        return score;
+    }
+
+    private static boolean isHeading(Element el) {
+        String n = el.normalName();
+        return n.length() == 2 && n.charAt(0) == 'h' && n.charAt(1) >= '1' && n.charAt(1) <= '6';
+    }
+
+    private static int count(String s, char c) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == c) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,79 @@
+package com.extention.backend.mapper;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Text of a PDF, one page at a time. PDFs need random access (the xref table sits at the end), so the capped body
+ * is spooled to a temp file rather than held in memory; PDFBox keeps its own stream cache on disk as well and only
+ * parses a page's content stream when that page is stripped. Stops as soon as maxChars of text is collected.
+ */
+final class PdfTextExtractor {
+
+    static final byte[] MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    record Result(ContentExtractor.ExtractedContent content, int pagesRead, boolean truncated) {}
+
+    private PdfTextExtractor() {}
+
+    static boolean isPdf(byte[] head) {
+        if (head.length < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    static Result extract(InputStream body, String url, int maxChars) throws IOException {
+        Path spool = Files.createTempFile("page", ".pdf");
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+            try (PDDocument doc = Loader.loadPDF(spool.toFile(), null, null, null, IOUtils.createTempFileOnlyStreamCache())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                stripper.setSortByPosition(true);
+                stripper.setParagraphEnd("\n\n");
+
+                StringBuilder text = new StringBuilder(Math.min(maxChars, 16_384));
+                int pages = doc.getNumberOfPages();
+                int read = 0;
+                while (read < pages && text.length() < maxChars) {
+                    read++;
+                    stripper.setStartPage(read);
+                    stripper.setEndPage(read);
+                    String page = stripper.getText(doc).strip();
+                    if (page.isEmpty()) continue;
+                    if (!text.isEmpty()) text.append("\n\n");
+                    text.append(page);
+                }
+                boolean truncated = text.length() >= maxChars && read < pages;
+                if (text.length() > maxChars) text.setLength(maxChars);
+                return new Result(new ContentExtractor.ExtractedContent(title(doc, url), text.toString()), read, truncated);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    // Document info title when set, else the file name from the URL
+    private static String title(PDDocument doc, String url) {
+        String title = doc.getDocumentInformation().getTitle();
+        if (title != null && !title.isBlank()) return title.strip();
+        try {
+            String path = URI.create(url).getPath();
+            if (path != null && !path.isEmpty()) {
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                if (!name.isEmpty()) return name;
+            }
+        } catch (IllegalArgumentException ignored) {}
+        return "";
+    }
+}
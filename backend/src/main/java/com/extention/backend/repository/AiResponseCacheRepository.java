@@ -0,0 +1,23 @@
+package com.extention.backend.repository;
+
+
+import com.extention.backend.entity.AiResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface AiResponseCacheRepository extends JpaRepository<AiResponseCacheEntry, String> {
+
+    // At most limit rows per call (found through ix_ai_response_cache_stored_at), so each purge transaction stays short
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from ai_response_cache where cache_key in (
+                select cache_key from ai_response_cache where stored_at < :cutoff limit :limit)
+            """, nativeQuery = true)
+    int deleteStoredBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
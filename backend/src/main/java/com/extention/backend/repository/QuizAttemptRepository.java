@@ -2,10 +2,23 @@ package com.extention.backend.repository;
 
 
 import com.extention.backend.entity.QuizAttempt;
+import com.extention.backend.response.AttemptDto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, Long> {
-    List<QuizAttempt> findTop20ByUsernameOrderByCreatedAtDesc(String username);
-}
\ No newline at end of file
+
+    // One join, no entity loading: the quiz's stored count replaces parsing questionsJson per row
+    @Query("""
+            select new com.extention.backend.response.AttemptDto(
+                a.id, q.id, a.score, coalesce(q.questionsCount, 0), coalesce(q.articleTitle, 'Quiz'), a.createdAt)
+            from QuizAttempt a join a.quiz q
+            where a.username = :username
+            order by a.createdAt desc
+            """)
+    List<AttemptDto> findRecent(@Param("username") String username, Limit limit);
+}
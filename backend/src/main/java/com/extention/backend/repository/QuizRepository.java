@@ -4,8 +4,15 @@ package com.extention.backend.repository;
 import com.extention.backend.entity.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
     List<Quiz> findByUsernameOrderByCreatedAtDesc(String username);
-}
\ No newline at end of file
+
+    Optional<Quiz> findFirstByContentHashAndCreatedAtAfterOrderByCreatedAtDesc(String contentHash, Instant after);
+
+    // Rows created before questionsCount existed
+    List<Quiz> findTop500ByQuestionsCountIsNullOrderByIdAsc();
+}
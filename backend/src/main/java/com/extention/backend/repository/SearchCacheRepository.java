@@ -0,0 +1,22 @@
+package com.extention.backend.repository;
+
+import com.extention.backend.entity.SearchCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface SearchCacheRepository extends JpaRepository<SearchCacheEntry, String> {
+
+    // At most limit rows per call (found through ix_search_cache_expires_at), so each purge transaction stays short
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from search_cache where cache_key in (
+                select cache_key from search_cache where expires_at < :now limit :limit)
+            """, nativeQuery = true)
+    int deleteExpiredBefore(@Param("now") Instant now, @Param("limit") int limit);
+}
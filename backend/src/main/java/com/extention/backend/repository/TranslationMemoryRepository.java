@@ -0,0 +1,25 @@
+package com.extention.backend.repository;
+
+import com.extention.backend.entity.TranslationMemoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface TranslationMemoryRepository extends JpaRepository<TranslationMemoryEntry, Long> {
+    List<TranslationMemoryEntry> findByTargetLangAndSourceHashIn(String targetLang, Collection<String> sourceHashes);
+
+    // At most limit rows per call (found through ix_translation_memory_stored_at), so each purge transaction stays short
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from translation_memory where id in (
+                select id from translation_memory where stored_at < :cutoff limit :limit)
+            """, nativeQuery = true)
+    int deleteStoredBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -10,5 +10,6 @@ public class FindSourcesRequest {
     private String sourceUrl;
     private String persona;
     private Integer size;
+    private Boolean verify; // fetch the top results and quote the best-matching sentence as the reason
 
 }
\ No newline at end of file
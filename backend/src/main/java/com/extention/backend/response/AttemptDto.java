@@ -0,0 +1,6 @@
+package com.extention.backend.response;
+
+import java.time.Instant;
+
+// Built directly by the recent-attempts projection query (QuizAttemptRepository.findRecent)
+public record AttemptDto(Long id, Long quizId, int score, int questionsCount, String articleTitle, Instant createdAt) {}
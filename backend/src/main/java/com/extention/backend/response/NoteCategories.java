@@ -0,0 +1,20 @@
+package com.extention.backend.response;
+
+import java.util.List;
+
+// Note categorization as stored in Note.categoriesJson
+public record NoteCategories(String topic, List<String> relatedTo, List<String> tags, String summary) {
+
+    public static final String SCHEMA = """
+            {
+              "type": "OBJECT",
+              "properties": {
+                "topic": { "type": "STRING" },
+                "relatedTo": { "type": "ARRAY", "items": { "type": "STRING" } },
+                "tags": { "type": "ARRAY", "items": { "type": "STRING" } },
+                "summary": { "type": "STRING" }
+              },
+              "required": ["topic", "relatedTo", "tags", "summary"]
+            }
+            """;
+}
@@ -0,0 +1,15 @@
+package com.extention.backend.response;
+
+import java.time.Instant;
+
+// Snapshot of an asynchronous quiz generation; quizId is set once the stage is SAVED
+public record QuizJobStatus(String jobId, Stage stage, Long quizId, String error, Instant createdAt, Instant updatedAt) {
+
+    public enum Stage {
+        QUEUED, FETCHING, EXTRACTING, GENERATING, VALIDATING, SAVED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == SAVED || this == FAILED || this == CANCELLED;
+        }
+    }
+}
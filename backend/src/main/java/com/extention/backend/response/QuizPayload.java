@@ -0,0 +1,32 @@
+package com.extention.backend.response;
+
+import java.util.List;
+
+// Quiz JSON as generated by the model and stored in Quiz.questionsJson
+public record QuizPayload(List<Question> questions) {
+
+    public record Question(String question, List<String> options, int correctIndex, String explanation) {}
+
+    // Gemini responseSchema (OpenAPI subset)
+    public static final String SCHEMA = """
+            {
+              "type": "OBJECT",
+              "properties": {
+                "questions": {
+                  "type": "ARRAY",
+                  "items": {
+                    "type": "OBJECT",
+                    "properties": {
+                      "question": { "type": "STRING" },
+                      "options": { "type": "ARRAY", "items": { "type": "STRING" } },
+                      "correctIndex": { "type": "INTEGER" },
+                      "explanation": { "type": "STRING" }
+                    },
+                    "required": ["question", "options", "correctIndex", "explanation"]
+                  }
+                }
+              },
+              "required": ["questions"]
+            }
+            """;
+}
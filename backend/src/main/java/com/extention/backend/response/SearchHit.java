@@ -0,0 +1,4 @@
+package com.extention.backend.response;
+
+// The fields we use from one Custom Search result item
+public record SearchHit(String title, String link, String snippet) {}
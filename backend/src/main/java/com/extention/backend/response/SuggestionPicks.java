@@ -0,0 +1,30 @@
+package com.extention.backend.response;
+
+import java.util.List;
+
+// Reading-list picks chosen by the model from the candidate list
+public record SuggestionPicks(List<Pick> suggestions) {
+
+    public record Pick(String url, String title, String reason) {}
+
+    public static final String SCHEMA = """
+            {
+              "type": "OBJECT",
+              "properties": {
+                "suggestions": {
+                  "type": "ARRAY",
+                  "items": {
+                    "type": "OBJECT",
+                    "properties": {
+                      "url": { "type": "STRING" },
+                      "title": { "type": "STRING" },
+                      "reason": { "type": "STRING" }
+                    },
+                    "required": ["url", "title", "reason"]
+                  }
+                }
+              },
+              "required": ["suggestions"]
+            }
+            """;
+}
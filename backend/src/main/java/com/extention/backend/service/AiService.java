@@ -2,14 +2,20 @@ package com.extention.backend.service;
 
 import com.extention.backend.request.AiRequest;
 import com.extention.backend.response.AiResponse;
+import com.extention.backend.response.NoteCategories;
+import com.extention.backend.response.QuizPayload;
+import com.extention.backend.response.SuggestionPicks;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Service
 public interface AiService {
     AiResponse process(AiRequest aiRequest);
-    String generateQuizJson(String title, String text);
-    String categorizeNoteJson(String text);
-    String selectSuggestionsJson(String baseSummary, String candidatesJson);
+    AiResponse stream(AiRequest aiRequest, Consumer<String> onChunk);
+    QuizPayload generateQuiz(String title, String text);
+    NoteCategories categorizeNote(String text);
+    SuggestionPicks selectSuggestions(String baseSummary, String candidatesJson);
 
 
 }
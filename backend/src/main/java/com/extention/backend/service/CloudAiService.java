@@ -2,7 +2,15 @@ package com.extention.backend.service;
 
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Service
 public interface CloudAiService {
     String callGeminiApi(String prompt);
+
+    // Native JSON mode: responseMimeType application/json constrained by responseSchema (OpenAPI subset)
+    String callGeminiJson(String prompt, String responseSchema);
+
+    // Relays partial text to onChunk as it arrives; returns the full completion
+    String streamGeminiApi(String prompt, Consumer<String> onChunk);
 }
@@ -5,5 +5,5 @@ import com.extention.backend.response.SearchItem;
 import java.util.List;
 
 public interface CloudSearchService {
-    List<SearchItem> findSources(String text, String sourceUrl, String persona, int size);
+    List<SearchItem> findSources(String text, String sourceUrl, String persona, int size, boolean verify);
 }
\ No newline at end of file
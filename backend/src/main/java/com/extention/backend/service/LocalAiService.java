@@ -2,7 +2,12 @@ package com.extention.backend.service;
 
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+// Content-addressed response cache in front of CloudAiService (heap tier + Postgres tier)
 @Service
 public interface LocalAiService {
-    //todo: use for caching
+    String keyFor(String prompt);
+    Optional<String> lookup(String prompt);
+    void store(String prompt, String output);
 }
@@ -0,0 +1,31 @@
+package com.extention.backend.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// Extracted pages by canonical URL, compressed on local disk, with the validators needed to revalidate them
+@Service
+public interface PageCacheService {
+
+    record CachedPage(String title, String text, String etag, String lastModified, Instant fetchedAt) {
+        public CachedPage revalidatedAt(Instant at) {
+            return new CachedPage(title, text, etag, lastModified, at);
+        }
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    String keyFor(String url);
+
+    // Present regardless of age; see isFresh
+    Optional<CachedPage> lookup(String key);
+
+    // Within the TTL a hit skips the network; after it the page is revalidated with a conditional request
+    boolean isFresh(CachedPage page);
+
+    void store(String key, CachedPage page);
+}
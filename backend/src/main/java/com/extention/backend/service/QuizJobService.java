@@ -0,0 +1,29 @@
+package com.extention.backend.service;
+
+import com.extention.backend.response.QuizJobStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Quiz-from-URL generation off the request thread; jobs are visible only to the user who submitted them
+@Service
+public interface QuizJobService {
+
+    // Throws UpstreamThrottledException when the user already has the maximum number of jobs in flight
+    QuizJobStatus submit(String username, String url, boolean force);
+
+    Optional<QuizJobStatus> status(String username, String jobId);
+
+    /**
+     * Calls listener with the current status and then on every stage change until the job is terminal.
+     * Returns a handle that stops the notifications, or empty if there is no such job for this user.
+     */
+    Optional<Runnable> subscribe(String username, String jobId, Consumer<QuizJobStatus> listener);
+
+    /**
+     * Marks the job cancelled. A running job keeps its per-user slot until the worker actually stops, and once
+     * the quiz is being saved it is too late: the job finishes as SAVED.
+     */
+    Optional<QuizJobStatus> cancel(String username, String jobId);
+}
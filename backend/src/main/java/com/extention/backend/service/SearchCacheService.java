@@ -0,0 +1,21 @@
+package com.extention.backend.service;
+
+import com.extention.backend.response.SearchHit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+// Custom Search results by exact request (query + num + lr + gl): heap tier + Postgres tier, with negative entries
+@Service
+public interface SearchCacheService {
+    String keyFor(String query, int num, String lang, String region);
+
+    // Present (possibly empty) when the call can be skipped
+    Optional<List<SearchHit>> lookup(String key);
+
+    void store(String key, String query, List<SearchHit> hits);
+
+    // Per-request failure: skip this query for a short while (heap only)
+    void storeFailure(String key);
+}
@@ -0,0 +1,12 @@
+package com.extention.backend.service;
+
+import com.extention.backend.response.SearchItem;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public interface SourceVerificationService {
+    // Replaces the reason of the top results with the page sentence that best supports the claim, within a deadline
+    void verify(String claim, List<SearchItem> items);
+}
@@ -0,0 +1,11 @@
+package com.extention.backend.service;
+
+import com.extention.backend.request.AiRequest;
+import com.extention.backend.response.AiResponse;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface TranslationMemoryService {
+    // Translates segment by segment, reusing stored segments; fromLocal when nothing had to be sent to Gemini
+    AiResponse translate(AiRequest request);
+}
@@ -3,30 +3,248 @@ package com.extention.backend.service.serviceImpl;
 import com.extention.backend.entity.Action;
 import com.extention.backend.request.AiRequest;
 import com.extention.backend.response.AiResponse;
+import com.extention.backend.response.NoteCategories;
+import com.extention.backend.response.QuizPayload;
+import com.extention.backend.response.SuggestionPicks;
 import com.extention.backend.service.AiService;
 import com.extention.backend.service.CloudAiService;
+import com.extention.backend.service.LocalAiService;
+import com.extention.backend.service.TranslationMemoryService;
+import com.extention.backend.utils.JsonExtractor;
+import com.extention.backend.utils.QuizValidator;
+import com.extention.backend.utils.SingleFlight;
+import com.extention.backend.utils.TextChunker;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 @RequiredArgsConstructor
 @Service
 public class AiServiceImpl implements AiService {
 
     private final CloudAiService cloudAiService;
+    private final LocalAiService localAiService;
+    private final TranslationMemoryService translationMemoryService;
+    private final SingleFlight geminiSingleFlight;
+    private final ThreadPoolTaskExecutor aiChunkExecutor;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    @Value("${application.ai.chunking.max-input-tokens:12000}")
+    private int maxInputTokens;
+
+    @Value("${application.ai.chunking.chunk-tokens:3000}")
+    private int chunkTokens;
+
+    @Value("${application.ai.chunking.parallelism:4}")
+    private int chunkParallelism;
+
+    private static final int MAX_CONDENSE_ROUNDS = 3;
+
     @Override
     public AiResponse process(AiRequest aiRequest) {
+        if (aiRequest.action() == Action.translate) {
+            return translationMemoryService.translate(aiRequest);
+        }
+        if (isChunked(aiRequest)) {
+            return summarizeInChunks(aiRequest);
+        }
+        String prompt = createPrompt(aiRequest);
+        return complete(prompt);
+    }
+
+    @Override
+    public AiResponse stream(AiRequest aiRequest, Consumer<String> onChunk) {
+        if (aiRequest.action() == Action.translate || isChunked(aiRequest)) {
+            // Segment reassembly / the reduce step need every part first; relay the finished result as one chunk
+            AiResponse out = process(aiRequest);
+            onChunk.accept(out.getResult());
+            return out;
+        }
         String prompt = createPrompt(aiRequest);
-        String output = cloudAiService.callGeminiApi(prompt);
+        var cached = localAiService.lookup(prompt);
+        if (cached.isPresent()) {
+            onChunk.accept(cached.get());
+            return AiResponse.builder()
+                    .result(cached.get())
+                    .fromLocal(true)
+                    .build();
+        }
+        // Only a completed stream reaches the cache; a cancelled one throws out of streamGeminiApi
+        String output = cloudAiService.streamGeminiApi(prompt, onChunk);
+        localAiService.store(prompt, output);
         return AiResponse.builder()
                 .result(output)
                 .fromLocal(false)
                 .build();
     }
 
+    // Cache-first Gemini call; fromLocal marks responses served without an upstream round trip.
+    // Identical prompts already in flight share one upstream call instead of sending N copies.
+    private AiResponse complete(String prompt) {
+        return complete(prompt, null);
+    }
+
+    // responseSchema switches Gemini to native JSON output; the schema is part of the cache key
+    private AiResponse complete(String prompt, String responseSchema) {
+        String cacheKey = responseSchema == null ? prompt : prompt + "\n\n" + responseSchema;
+        var cached = localAiService.lookup(cacheKey);
+        if (cached.isPresent()) {
+            return AiResponse.builder()
+                    .result(cached.get())
+                    .fromLocal(true)
+                    .build();
+        }
+        String output = geminiSingleFlight.execute(localAiService.keyFor(cacheKey), () -> {
+            String out = responseSchema == null
+                    ? cloudAiService.callGeminiApi(prompt)
+                    : cloudAiService.callGeminiJson(prompt, responseSchema);
+            localAiService.store(cacheKey, out);
+            return out;
+        });
+        return AiResponse.builder()
+                .result(output)
+                .fromLocal(false)
+                .build();
+    }
+
+    // ---------- long inputs: summarize/explain each chunk, then reduce the section notes ----------
+
+    private boolean isChunked(AiRequest req) {
+        return (req.action() == Action.summarize || req.action() == Action.explain)
+                && TextChunker.estimateTokens(req.text()) > maxInputTokens;
+    }
+
+    // Chunk prompts only depend on the chunk text, so each one goes through the response cache:
+    // re-summarizing after a small edit only sends the changed chunks to Gemini.
+    private AiResponse summarizeInChunks(AiRequest req) {
+        List<String> chunks = TextChunker.split(req.text(), chunkTokens);
+        List<AiResponse> partials = mapAll(chunks, chunk -> createPrompt(withText(req, chunk, true)));
+        boolean fromLocal = partials.stream().allMatch(AiResponse::isFromLocal);
+
+        List<String> bullets = new ArrayList<>();
+        Map<String, JsonNode> citations = new LinkedHashMap<>();
+        for (AiResponse partial : partials) {
+            collect(partial.getResult(), bullets, citations);
+        }
+
+        // Notes from a very long input can outgrow one prompt themselves: condense them in groups until they fit
+        for (int round = 0; round < MAX_CONDENSE_ROUNDS
+                && TextChunker.estimateTokens(String.join("\n", bullets)) > maxInputTokens; round++) {
+            List<String> groups = TextChunker.split(String.join("\n\n", bullets), chunkTokens);
+            List<AiResponse> condensed = mapAll(groups, group -> createPrompt(withText(req, group, true)));
+            fromLocal &= condensed.stream().allMatch(AiResponse::isFromLocal);
+            bullets.clear();
+            for (AiResponse c : condensed) {
+                collect(c.getResult(), bullets, citations);
+            }
+        }
+
+        StringBuilder notes = new StringBuilder("Section notes from a long document, in order:\n");
+        bullets.forEach(b -> notes.append("- ").append(b).append('\n'));
+        if (!req.structured() && req.citeSources() && !citations.isEmpty()) {
+            notes.append("\nSources referenced in the document:\n");
+            citations.values().forEach(c -> notes.append("- ")
+                    .append(c.path("title").asText("")).append(' ')
+                    .append(c.path("url").asText("")).append('\n'));
+        }
+
+        AiResponse reduced = complete(createPrompt(withText(req, notes.toString(), req.structured())));
+        String result = req.structured()
+                ? withCitations(reduced.getResult(), citations)
+                : reduced.getResult();
+        return AiResponse.builder()
+                .result(result)
+                .fromLocal(fromLocal && reduced.isFromLocal())
+                .build();
+    }
+
+    // Runs one cached Gemini call per input on the chunk pool, at most chunkParallelism at a time per request
+    private List<AiResponse> mapAll(List<String> inputs, Function<String, String> toPrompt) {
+        Semaphore permits = new Semaphore(Math.max(1, chunkParallelism));
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<AiResponse>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (String input : inputs) {
+                permits.acquire();
+                // A chunk already failed: the whole map fails, so stop submitting (the permit was never used)
+                if (failed.get()) {
+                    permits.release();
+                    break;
+                }
+                String prompt = toPrompt.apply(input);
+                futures.add(CompletableFuture.supplyAsync(() -> complete(prompt), aiChunkExecutor)
+                        .whenComplete((r, e) -> {
+                            // Set before the release, so the submit loop sees it once it gets the permit
+                            if (e != null) failed.set(true);
+                            permits.release();
+                        }));
+            }
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while summarizing chunks", e);
+        } catch (CompletionException e) {
+            cancelAll(futures);
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    // Chunks still queued on the pool are skipped; ones already calling Gemini finish and are discarded
+    private static void cancelAll(List<CompletableFuture<AiResponse>> futures) {
+        futures.forEach(f -> f.cancel(false));
+    }
+
+    private void collect(String raw, List<String> bullets, Map<String, JsonNode> citations) {
+        JsonNode node;
+        try {
+            node = JsonExtractor.readTree(raw);
+        } catch (Exception e) {
+            // Model ignored the JSON instruction; keep its text as a single note
+            if (raw != null && !raw.isBlank()) bullets.add(raw.strip());
+            return;
+        }
+        for (JsonNode b : node.path("bullets")) {
+            String text = b.asText("").strip();
+            if (!text.isEmpty()) bullets.add(text);
+        }
+        for (JsonNode c : node.path("citations")) {
+            String key = c.path("url").asText(c.path("title").asText("")).strip();
+            if (!key.isEmpty()) citations.putIfAbsent(key, c);
+        }
+    }
+
+    // Citations come from the chunks (the reduce step only sees notes), so they are merged here rather than by the model
+    private String withCitations(String reduced, Map<String, JsonNode> citations) {
+        try {
+            ObjectNode out = (ObjectNode) JsonExtractor.readTree(reduced);
+            out.putArray("citations").addAll(citations.values());
+            return mapper.writeValueAsString(out);
+        } catch (Exception e) {
+            return reduced;
+        }
+    }
+
+    private static AiRequest withText(AiRequest req, String text, boolean structured) {
+        return new AiRequest(text, req.action(), req.targetLang(), req.persona(), req.citeSources(), structured);
+    }
+
     // Persona-aware + citations + optional structured output for summarize/explain
     private String createPrompt(AiRequest req) {
         String text = safe(req.text());
@@ -144,36 +362,8 @@ public class AiServiceImpl implements AiService {
         return s == null ? "" : s;
     }
 
-    // (unchanged helpers below shown from your original for completeness)
-    private String extractFirstJsonObject(String text) {
-        try {
-            JsonNode node = mapper.readTree(text);
-            return node.toString();
-        } catch (Exception ignored) {}
-        int i = text.indexOf('{');
-        int brace = 0;
-        for (int start = i; start >= 0 && start < text.length(); start = text.indexOf('{', start + 1)) {
-            brace = 0;
-            for (int j = start; j < text.length(); j++) {
-                char c = text.charAt(j);
-                if (c == '{') brace++;
-                if (c == '}') brace--;
-                if (brace == 0) {
-                    String candidate = text.substring(start, j + 1);
-                    try {
-                        mapper.readTree(candidate);
-                        return candidate;
-                    } catch (Exception ignore) {}
-                    break;
-                }
-            }
-            if (start == -1) break;
-        }
-        throw new RuntimeException("AI did not return valid JSON");
-    }
-
     @Override
-    public String generateQuizJson(String title, String text) {
+    public QuizPayload generateQuiz(String title, String text) {
         String prompt = """
             You are a quiz generator. Create 5 multiple-choice questions (MCQs) based on the article below.
             Output STRICT JSON matching this schema:
@@ -198,12 +388,53 @@ public class AiServiceImpl implements AiService {
             Article:
             %s
             """.formatted(safe(title), safe(text));
-        String raw = cloudAiService.callGeminiApi(prompt);
-        return extractFirstJsonObject(raw);
+        String raw = cloudAiService.callGeminiJson(prompt, QuizPayload.SCHEMA);
+        List<QuizPayload.Question> questions = QuizValidator.merge(List.of(), JsonExtractor.read(raw, QuizPayload.class));
+
+        // Repaired locally where possible; only the questions that had to be dropped are asked for again
+        int missing = QuizValidator.QUESTIONS - questions.size();
+        if (missing > 0) {
+            try {
+                String more = cloudAiService.callGeminiJson(followUpPrompt(title, text, questions, missing), QuizPayload.SCHEMA);
+                questions = QuizValidator.merge(questions, JsonExtractor.read(more, QuizPayload.class));
+            } catch (RuntimeException e) {
+                // Keep the questions we have rather than failing the whole quiz
+            }
+        }
+        return new QuizPayload(questions);
+    }
+
+    private String followUpPrompt(String title, String text, List<QuizPayload.Question> existing, int missing) {
+        StringBuilder avoid = new StringBuilder();
+        for (QuizPayload.Question q : existing) avoid.append("- ").append(q.question()).append('\n');
+        return """
+            You are a quiz generator. Create %d more multiple-choice questions (MCQs) based on the article below.
+            Output STRICT JSON matching this schema:
+            {
+              "questions": [
+                {
+                  "question": "string",
+                  "options": ["string","string","string","string"],
+                  "correctIndex": 0,
+                  "explanation": "string"
+                }
+              ]
+            }
+            Rules:
+            - Exactly %d questions.
+            - 4 distinct options per question.
+            - Only one correct option per question (correctIndex 0..3).
+            - Do NOT include any text outside of the JSON.
+            - Do not repeat or rephrase any of these existing questions:
+            %s
+            Title: %s
+            Article:
+            %s
+            """.formatted(missing, missing, avoid, safe(title), safe(text));
     }
 
     @Override
-    public String categorizeNoteJson(String text) {
+    public NoteCategories categorizeNote(String text) {
         String prompt = """
             Categorize the note text. Return STRICT JSON:
             {
@@ -217,12 +448,12 @@ public class AiServiceImpl implements AiService {
             Text:
             %s
             """.formatted(safe(text));
-        String raw = cloudAiService.callGeminiApi(prompt);
-        return extractFirstJsonObject(raw);
+        String raw = complete(prompt, NoteCategories.SCHEMA).getResult();
+        return JsonExtractor.read(raw, NoteCategories.class);
     }
 
     @Override
-    public String selectSuggestionsJson(String baseSummary, String candidatesJson) {
+    public SuggestionPicks selectSuggestions(String baseSummary, String candidatesJson) {
         String prompt = """
             You are a reading list curator. From the candidate list, pick the 3 most relevant items for the user.
             Return STRICT JSON:
@@ -243,7 +474,7 @@ public class AiServiceImpl implements AiService {
             Candidates:
             %s
             """.formatted(safe(baseSummary), candidatesJson);
-        String raw = cloudAiService.callGeminiApi(prompt);
-        return extractFirstJsonObject(raw);
+        String raw = complete(prompt, SuggestionPicks.SCHEMA).getResult();
+        return JsonExtractor.read(raw, SuggestionPicks.class);
     }
 }
\ No newline at end of file
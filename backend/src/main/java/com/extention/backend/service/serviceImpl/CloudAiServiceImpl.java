@@ -1,14 +1,25 @@
 package com.extention.backend.service.serviceImpl;
 
+import com.extention.backend.exception.UpstreamException;
 import com.extention.backend.service.CloudAiService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.extention.backend.utils.AuthUserUtil;
+import com.extention.backend.utils.FairScheduler;
+import com.extention.backend.utils.GeminiCodec;
+import com.extention.backend.utils.UpstreamGovernor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
 @Service
 @RequiredArgsConstructor
 public class CloudAiServiceImpl implements CloudAiService {
@@ -16,58 +27,113 @@ public class CloudAiServiceImpl implements CloudAiService {
     @Value("${application.config.GEMINI_API_KEY}")
     private String apiKey;
 
+    @Value("${application.ai.model:gemini-2.5-flash}")
+    private String model;
+
     private final RestTemplate restTemplate;
+    private final UpstreamGovernor geminiGovernor;
+    private final FairScheduler llmScheduler;
+    private final MeterRegistry meterRegistry;
     private static final String BASE_URL =
-            "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent";
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+            "https://generativelanguage.googleapis.com/v1beta/models/";
 
+    // Every Gemini call waits its turn in the caller's fair-share queue
     @Override
     public String callGeminiApi(String prompt) {
+        return llmScheduler.run(AuthUserUtil.usernameOrAnonymous(), estimateTokens(prompt), () -> generate(prompt, null));
+    }
+
+    @Override
+    public String callGeminiJson(String prompt, String responseSchema) {
+        return llmScheduler.run(AuthUserUtil.usernameOrAnonymous(), estimateTokens(prompt),
+                () -> generate(prompt, responseSchema));
+    }
+
+    @Override
+    public String streamGeminiApi(String prompt, Consumer<String> onChunk) {
+        return llmScheduler.run(AuthUserUtil.usernameOrAnonymous(), estimateTokens(prompt), () -> stream(prompt, onChunk));
+    }
+
+    private String generate(String prompt, String responseSchema) {
         try {
-            String url = BASE_URL + "?key=" + apiKey;
-
-            // Build request body safely
-            String escaped = prompt.replace("\\", "\\\\").replace("\"", "\\\"");
-            String requestBody = """
-                    {
-                      "contents": [
-                        {
-                          "parts": [
-                            { "text": "%s" }
-                          ]
-                        }
-                      ]
-                    }
-                    """.formatted(escaped);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> request = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, request, String.class);
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new RuntimeException("Gemini HTTP " + response.getStatusCodeValue());
-            }
+            String url = BASE_URL + model + ":generateContent?key=" + apiKey;
 
-            JsonNode root = MAPPER.readTree(response.getBody());
-            JsonNode candidates = root.path("candidates");
-            if (!candidates.isArray() || candidates.isEmpty()) {
-                throw new RuntimeException("No candidates in response");
-            }
-            JsonNode textNode = candidates.get(0)
-                    .path("content")
-                    .path("parts")
-                    .path(0)
-                    .path("text");
+            // Body is encoded straight onto the connection and only candidates[0] text + usage are decoded
+            GeminiCodec.Completion completion = geminiGovernor.call(estimateTokens(prompt), true,
+                    () -> restTemplate.execute(url, HttpMethod.POST, request -> {
+                        request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                        GeminiCodec.writeRequest(request.getBody(), prompt, responseSchema);
+                    }, response -> GeminiCodec.readResponse(response.getBody())));
 
-            if (textNode.isMissingNode() || textNode.isNull()) {
+            if (completion == null || completion.text().isEmpty()) {
                 throw new RuntimeException("No text in candidate");
             }
-
-            return textNode.asText();
+            recordUsage(completion.usage());
+            return completion.text();
+        } catch (UpstreamException e) {
+            // Quota/outage decisions keep their 429/503 mapping
+            throw e;
         } catch (Exception e) {
             // Re-throw so controller/advice returns proper non-2xx
             throw new RuntimeException("Gemini call failed: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // streamGenerateContent with alt=sse; throwing from onChunk (client gone) stops the read and aborts the upstream
+    private String stream(String prompt, Consumer<String> onChunk) {
+        try {
+            String url = BASE_URL + model + ":streamGenerateContent?alt=sse&key=" + apiKey;
+
+            // Not retried: chunks may already have been relayed to the client
+            String full = geminiGovernor.call(estimateTokens(prompt), false, () -> restTemplate.execute(url, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                GeminiCodec.writeRequest(request.getBody(), prompt, null);
+            }, response -> {
+                GeminiCodec.Completion completion = relay(response.getBody(), onChunk);
+                recordUsage(completion.usage());
+                return completion.text();
+            }));
+
+            if (full == null || full.isEmpty()) {
+                throw new RuntimeException("No text in streamed response");
+            }
+            return full;
+        } catch (UpstreamException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Gemini stream failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closing an HttpClient response drains the rest of the body to reuse the connection, which for an
+     * abandoned stream means paying for every remaining token. If the read stops early the connection is
+     * aborted first, so the close that follows has nothing left to drain.
+     */
+    static GeminiCodec.Completion relay(InputStream body, Consumer<String> onChunk) throws IOException {
+        boolean complete = false;
+        try {
+            GeminiCodec.Completion completion = GeminiCodec.readStream(body, onChunk);
+            complete = true;
+            return completion;
+        } finally {
+            if (!complete && body instanceof EofSensorInputStream sensor) {
+                try {
+                    sensor.abort();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    private void recordUsage(GeminiCodec.Usage usage) {
+        if (usage.totalTokens() == 0) return;
+        meterRegistry.counter("ai.gemini.tokens", "type", "prompt").increment(usage.promptTokens());
+        meterRegistry.counter("ai.gemini.tokens", "type", "candidates").increment(usage.candidateTokens());
+    }
+
+    // Rough input-token estimate (~4 chars per token) for the TPM bucket
+    private static long estimateTokens(String prompt) {
+        return prompt == null ? 0 : prompt.length() / 4 + 1;
+    }
+}
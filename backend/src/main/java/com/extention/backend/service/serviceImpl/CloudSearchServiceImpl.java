@@ -1,12 +1,23 @@
 package com.extention.backend.service.serviceImpl;
 
+import com.extention.backend.exception.UpstreamException;
+import com.extention.backend.response.SearchHit;
 import com.extention.backend.response.SearchItem;
 import com.extention.backend.service.CloudSearchService;
+import com.extention.backend.service.SearchCacheService;
+import com.extention.backend.service.SourceVerificationService;
+import com.extention.backend.utils.CseCodec;
+import com.extention.backend.utils.QueryPlanner;
+import com.extention.backend.utils.SingleFlight;
+import com.extention.backend.utils.UpstreamGovernor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
@@ -14,27 +25,65 @@ import java.net.URISyntaxException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class CloudSearchServiceImpl implements CloudSearchService {
+    private static final Pattern SITE_SUFFIX = Pattern.compile("\\s+[-|•–—]\\s+.*$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final RestClient http;
+    private final SingleFlight searchSingleFlight;
+    private final UpstreamGovernor searchGovernor;
+    private final ThreadPoolTaskExecutor searchExecutor;
+    private final SearchCacheService searchCache;
+    private final QueryPlanner queryPlanner;
+    private final SourceVerificationService sourceVerificationService;
     private final String apiKey;
     private final String cx;
+    private final int parallelism;
+    private final int maxQueries;
+    private final Duration deadline;
 
     public CloudSearchServiceImpl(
+            @Qualifier("searchRestClient") RestClient http,
+            @Qualifier("searchSingleFlight") SingleFlight searchSingleFlight,
+            @Qualifier("searchGovernor") UpstreamGovernor searchGovernor,
+            @Qualifier("searchExecutor") ThreadPoolTaskExecutor searchExecutor,
+            SearchCacheService searchCache,
+            QueryPlanner queryPlanner,
+            SourceVerificationService sourceVerificationService,
             @Value("${application.config.GOOGLE_CSE_API_KEY}") String apiKey,
-            @Value("${application.config.GOOGLE_CSE_CX}") String cx
+            @Value("${application.config.GOOGLE_CSE_CX}") String cx,
+            @Value("${application.search.fanout.parallelism:3}") int parallelism,
+            @Value("${application.search.fanout.max-queries:6}") int maxQueries,
+            @Value("${application.search.fanout.deadline:PT4S}") Duration deadline
     ) {
-        this.http = RestClient.create();
+        this.http = http;
+        this.searchSingleFlight = searchSingleFlight;
+        this.searchGovernor = searchGovernor;
+        this.searchExecutor = searchExecutor;
+        this.searchCache = searchCache;
+        this.queryPlanner = queryPlanner;
+        this.sourceVerificationService = sourceVerificationService;
         this.apiKey = apiKey;
         this.cx = cx;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxQueries = Math.max(1, maxQueries);
+        this.deadline = deadline;
     }
 
     @Override
-    public List<SearchItem> findSources(String text, String sourceUrl, String persona, int size) {
+    public List<SearchItem> findSources(String text, String sourceUrl, String persona, int size, boolean verify) {
         if (!StringUtils.hasText(apiKey) || !StringUtils.hasText(cx)) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search not configured");
         }
@@ -42,73 +91,135 @@ public class CloudSearchServiceImpl implements CloudSearchService {
         final int limit = Math.max(1, Math.min(size, 10));
         final String host = normalizeDomain(sourceUrl);
         final String subject = extractSubjectFromUrl(sourceUrl); // e.g., "Virat Kohli"
-        final QueryPlan plan = buildQueryPlan(text, subject, host);
+        final QueryPlanner.Plan plan = queryPlanner.plan(text, subject, host);
+
+        // The old first-sentence fallbacks are the plan's last two attempts, so the plan covers them
+        List<String> queries = plan.attempts().stream()
+                .filter(StringUtils::hasText)
+                .limit(maxQueries)
+                .toList();
 
         LinkedHashMap<String, SearchItem> dedup = new LinkedHashMap<>();
+        UpstreamException rejected = fanOut(queries, limit, plan, dedup);
 
-        for (String q : plan.attempts) {
-            if (!StringUtils.hasText(q)) continue;
-
-            Map<?, ?> body;
-            try {
-                body = http.get()
-                        .uri(buildUrl(q, limit, plan.lang, plan.region))
-                        .retrieve()
-                        .body(Map.class);
-            } catch (Exception ex) {
-                // Continue to next attempt on per-request failures
-                continue;
-            }
+        // Partial results beat a 429; only surface the rejection when there is nothing to return
+        if (dedup.isEmpty() && rejected != null) throw rejected;
+
+        List<SearchItem> items = dedup.values().stream().limit(limit).collect(Collectors.toList());
+        if (verify) sourceVerificationService.verify(text, items);
+        return items;
+    }
+
+    private record Attempt(int index, List<SearchHit> items, UpstreamException rejected) {}
+
+    /**
+     * Runs the plan as a sliding window of `parallelism` CSE calls in priority order and merges results in plan
+     * order, so the output matches the sequential plan. Stops launching once `limit` items are merged, the deadline
+     * passes or the upstream rejects us; at most maxQueries calls are spent per request.
+     * Unstarted calls are cancelled; in-flight ones are left to finish since single-flight may share them.
+     * Cached (and negatively cached) queries are answered inline and don't take a window slot or budget.
+     */
+    private UpstreamException fanOut(List<String> queries, int limit, QueryPlanner.Plan plan,
+                                     LinkedHashMap<String, SearchItem> dedup) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        int n = queries.size();
+        @SuppressWarnings("unchecked")
+        List<SearchHit>[] results = new List[n];
+        List<Future<Attempt>> futures = new ArrayList<>(n);
+        CompletionService<Attempt> completions = new ExecutorCompletionService<>(searchExecutor.getThreadPoolExecutor());
+        UpstreamException rejected = null;
+        int launched = 0;
+        int inFlight = 0;
+        int merged = 0;
 
-            List<?> items = Collections.emptyList();
-            if (body != null) {
-                Object obj = body.get("items");
-                if (obj instanceof List<?>) {
-                    items = (List<?>) obj;
+        try {
+            while (merged < n && dedup.size() < limit) {
+                while (rejected == null && launched < n && inFlight < parallelism && dedup.size() < limit) {
+                    int index = launched++;
+                    String query = queries.get(index);
+                    String key = searchCache.keyFor(query, limit, plan.lang(), plan.region());
+                    Optional<List<SearchHit>> cached = searchCache.lookup(key);
+                    if (cached.isPresent()) {
+                        results[index] = cached.get();
+                        merged = mergePrefix(results, merged, launched, limit, dedup);
+                        continue;
+                    }
+                    String url = buildUrl(query, limit, plan.lang(), plan.region());
+                    futures.add(completions.submit(() -> attempt(index, query, key, url)));
+                    inFlight++;
                 }
-            }
+                if (inFlight == 0 || dedup.size() >= limit) break;
 
-            mapAndDedup(items, dedup);
+                long remaining = deadlineNanos - System.nanoTime();
+                Future<Attempt> done = remaining > 0 ? completions.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) break; // deadline
+                inFlight--;
 
-            if (dedup.size() >= limit) break; // enough results
+                Attempt a = done.get();
+                results[a.index()] = a.items();
+                if (a.rejected() != null && rejected == null) rejected = a.rejected();
+
+                merged = mergePrefix(results, merged, launched, limit, dedup);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // attempt() doesn't throw; nothing to add beyond what was merged
+        } catch (RejectedExecutionException e) {
+            // Search pool saturated: answer with what we have
+        } finally {
+            futures.forEach(f -> f.cancel(false));
         }
 
-        // If still empty, try the first sentence as a last resort (with and without site exclusion)
-        if (dedup.isEmpty()) {
-            String first = firstSentence(text);
-            for (String q : Arrays.asList(
-                    safeJoin(subject, first, excludeSite(host)),
-                    safeJoin(subject, first)
-            )) {
-                if (!StringUtils.hasText(q)) continue;
-
-                Map<?, ?> body;
-                try {
-                    body = http.get()
-                            .uri(buildUrl(q, limit, plan.lang, plan.region))
-                            .retrieve()
-                            .body(Map.class);
-                } catch (Exception ex) {
-                    continue;
-                }
+        // Early exit (deadline/rejection): keep results that did arrive, still in plan order
+        for (int i = merged; i < n && dedup.size() < limit; i++) {
+            if (results[i] != null) mapAndDedup(results[i], dedup);
+        }
+        return rejected;
+    }
 
-                List<?> items = Collections.emptyList();
-                if (body != null) {
-                    Object obj = body.get("items");
-                    if (obj instanceof List<?>) {
-                        items = (List<?>) obj;
-                    }
-                }
-                mapAndDedup(items, dedup);
-                if (dedup.size() >= limit) break;
-            }
+    // Merges the contiguous finished prefix, highest priority first; returns the new merged count
+    private static int mergePrefix(List<SearchHit>[] results, int merged, int launched, int limit,
+                                   LinkedHashMap<String, SearchItem> dedup) {
+        while (merged < launched && results[merged] != null && dedup.size() < limit) {
+            mapAndDedup(results[merged++], dedup);
         }
+        return merged;
+    }
 
-        return dedup.values().stream().limit(limit).collect(Collectors.toList());
+    private Attempt attempt(int index, String query, String key, String url) {
+        try {
+            List<SearchHit> hits = fetchItems(url);
+            searchCache.store(key, query, hits);
+            return new Attempt(index, hits, null);
+        } catch (UpstreamException ex) {
+            // Quota exhausted or CSE down: further attempts would be rejected too (not cached: it's not about this query)
+            return new Attempt(index, List.of(), ex);
+        } catch (Exception ex) {
+            // Per-request failure: counts as an empty attempt, and is skipped for a short while
+            searchCache.storeFailure(key);
+            return new Attempt(index, List.of(), null);
+        }
     }
 
     // ---------- helpers ----------
 
+    // One CSE round trip; concurrent requests for the same URL share a single upstream call
+    private List<SearchHit> fetchItems(String url) {
+        return searchSingleFlight.execute(url, () -> searchGovernor.call(0, true, () -> http.get()
+                .uri(url)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        // Same exception type retrieve() raises, so the governor still sees 429/5xx
+                        throw new RestClientResponseException("CSE HTTP " + response.getStatusCode().value(),
+                                response.getStatusCode(), response.getStatusText(), response.getHeaders(),
+                                response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    // Decoded straight off the wire; only title/link/snippet of each item are kept
+                    return CseCodec.readItems(response.getBody());
+                })));
+    }
+
     // Use injected apiKey and cx instead of System properties
     private String buildUrl(String query, int num, String lang, String region) {
         StringBuilder sb = new StringBuilder("https://www.googleapis.com/customsearch/v1");
@@ -122,15 +233,12 @@ public class CloudSearchServiceImpl implements CloudSearchService {
     }
 
     private static String urlEnc(String s) { return URLEncoder.encode(s == null ? "" : s, StandardCharsets.UTF_8); }
-    private static String str(Object o) { return o == null ? "" : String.valueOf(o); }
-
-    private static void mapAndDedup(List<?> items, LinkedHashMap<String, SearchItem> dedup) {
-        for (Object it : items) {
-            if (!(it instanceof Map)) continue;
-            Map<?, ?> m = (Map<?, ?>) it;
-            String title = str(m.get("title"));
-            String link = str(m.get("link"));
-            String snippet = str(m.get("snippet"));
+
+    private static void mapAndDedup(List<SearchHit> items, LinkedHashMap<String, SearchItem> dedup) {
+        for (SearchHit hit : items) {
+            String title = hit.title();
+            String link = hit.link();
+            String snippet = hit.snippet();
             if (!StringUtils.hasText(link) || !StringUtils.hasText(title)) continue;
 
             String domain = normalizeDomain(link);
@@ -158,8 +266,7 @@ public class CloudSearchServiceImpl implements CloudSearchService {
     private static String normalizeTitleForKey(String title) {
         String t = title.trim().toLowerCase(Locale.ROOT);
         // trim trailing site suffix: " - ESPNcricinfo", " | The Hindu"
-        t = t.replaceAll("\\s+[-|•–—]\\s+.*$", "");
-        return t;
+        return SITE_SUFFIX.matcher(t).replaceFirst("");
     }
 
     private static String buildReason(String snippet) {
@@ -168,48 +275,6 @@ public class CloudSearchServiceImpl implements CloudSearchService {
         return StringUtils.hasText(s) ? (s + " — found by search") : "found by search";
     }
 
-    private static String excludeSite(String host) {
-        return StringUtils.hasText(host) ? ("-site:" + host) : "";
-    }
-
-    private static String safeJoin(String... parts) {
-        return Arrays.stream(parts).filter(StringUtils::hasText).collect(Collectors.joining(" "));
-    }
-
-    // Build a better query plan from text + subject + host
-    private static QueryPlan buildQueryPlan(String text, String subject, String host) {
-        String first = firstSentence(text);
-        String lang = guessLang(text);   // "en" best-effort
-        String region = guessRegion(text); // e.g., "IN" for Indian topics
-
-        // Extract key tokens from the biographical claim
-        ClaimTokens t = extractClaimTokens(text, subject);
-
-        List<String> attempts = new ArrayList<>(8);
-        // 1) Entity-focused with site exclusion
-        attempts.add(safeJoin(subject, t.core, t.when, t.where, excludeSite(host)));
-        // 2) Same without site exclusion (if #1 yields none)
-        attempts.add(safeJoin(subject, t.core, t.when, t.where));
-        // 3) Biography fallback
-        attempts.add(safeJoin(subject, "biography", excludeSite(host)));
-        attempts.add(safeJoin(subject, "biography"));
-        // 4) First sentence with subject
-        attempts.add(safeJoin(subject, first, excludeSite(host)));
-        attempts.add(safeJoin(subject, first));
-
-        // Deduplicate empty or identical attempts
-        LinkedHashSet<String> uniq = new LinkedHashSet<>();
-        for (String q : attempts) {
-            if (StringUtils.hasText(q)) uniq.add(q.trim());
-        }
-
-        QueryPlan plan = new QueryPlan();
-        plan.attempts = new ArrayList<>(uniq);
-        plan.lang = lang;
-        plan.region = region;
-        return plan;
-    }
-
     private static String extractSubjectFromUrl(String sourceUrl) {
         if (!StringUtils.hasText(sourceUrl)) return "";
         try {
@@ -235,7 +300,7 @@ public class CloudSearchServiceImpl implements CloudSearchService {
         if (!StringUtils.hasText(s)) return s;
         // Title case each word
         StringBuilder b = new StringBuilder();
-        for (String w : s.split("\\s+")) {
+        for (String w : WHITESPACE.split(s)) {
             if (w.isEmpty()) continue;
             b.append(Character.toUpperCase(w.charAt(0)));
             if (w.length() > 1) b.append(w.substring(1));
@@ -243,70 +308,4 @@ public class CloudSearchServiceImpl implements CloudSearchService {
         }
         return b.toString().trim();
     }
-
-    private static String firstSentence(String text) {
-        if (!StringUtils.hasText(text)) return "";
-        String s = text.strip();
-        int dot = s.indexOf('.');
-        if (dot >= 0 && dot < 400) return s.substring(0, dot + 1);
-        return s.length() > 400 ? s.substring(0, 400) : s;
-    }
-
-    private static String guessLang(String text) {
-        // Heuristic: default English
-        String t = (text == null ? "" : text.toLowerCase(Locale.ROOT));
-        if (t.matches(".*\\b(january|february|march|april|may|june|july|august|september|october|november|december)\\b.*")) return "en";
-        return "en";
-    }
-
-    private static String guessRegion(String text) {
-        String t = (text == null ? "" : text.toLowerCase(Locale.ROOT));
-        if (t.contains("delhi") || t.contains("india") || t.contains("punjabi")) return "IN";
-        return "";
-    }
-
-    private static ClaimTokens extractClaimTokens(String text, String subject) {
-        ClaimTokens ct = new ClaimTokens();
-        if (!StringUtils.hasText(text)) return ct;
-
-        String t = text;
-
-        // WHEN: years (1800..2099)
-        var years = new ArrayList<String>();
-        var yMatcher = Pattern.compile("\\b(18\\d{2}|19\\d{2}|20\\d{2})\\b").matcher(t);
-        while (yMatcher.find()) years.add(yMatcher.group(1));
-        if (!years.isEmpty()) ct.when = String.join(" ", years);
-
-        // WHERE: simple proper nouns like Delhi, Mumbai, Bengaluru (capitalized words excluding subject tokens)
-        var where = new LinkedHashSet<String>();
-        var capMatcher = Pattern.compile("\\b([A-Z][a-zA-Z]+)\\b").matcher(t);
-        String subjectLower = subject == null ? "" : subject.toLowerCase(Locale.ROOT);
-        while (capMatcher.find()) {
-            String w = capMatcher.group(1);
-            if (subjectLower.contains(w.toLowerCase(Locale.ROOT))) continue;
-            where.add(w);
-            if (where.size() >= 5) break; // cap noise
-        }
-        if (!where.isEmpty()) ct.where = String.join(" ", where);
-
-        // CORE: simple hint words
-        String lower = t.toLowerCase(Locale.ROOT);
-        if (lower.contains("born")) ct.core = "born";
-        else if (lower.contains("captain")) ct.core = "captain";
-        else if (lower.contains("cricketer")) ct.core = "cricketer";
-        else ct.core = "";
-
-        return ct;
-    }
-
-    private static class QueryPlan {
-        List<String> attempts;
-        String lang;
-        String region;
-    }
-    private static class ClaimTokens {
-        String core = "";
-        String when = "";
-        String where = "";
-    }
-}
\ No newline at end of file
+}
@@ -9,11 +9,11 @@ import com.extention.backend.repository.SuggestionRepository;
 import com.extention.backend.service.CloudAiService;
 import com.extention.backend.service.CompareConceptService;
 import com.extention.backend.utils.AuthUserUtil;
+import com.extention.backend.utils.JsonExtractor;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Comparator;
 import java.util.List;
@@ -27,8 +27,20 @@ public class CompareConceptServiceImpl implements CompareConceptService {
     private final CloudAiService cloudAiService; // Your existing cloud AI adapter
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final String RESPONSE_SCHEMA = """
+            {
+              "type": "OBJECT",
+              "properties": {
+                "key_claim": { "type": "STRING" },
+                "agreement": { "type": "STRING" },
+                "drift_analysis": { "type": "STRING" }
+              },
+              "required": ["key_claim", "agreement", "drift_analysis"]
+            }
+            """;
+
+    // Not transactional: the note/suggestion reads are short, and the Gemini call must not hold a connection
     @Override
-    @Transactional(readOnly = true)
     public CompareConceptController.CompareConceptResponse compare(String selectionText, String pageUrl) {
         String username = AuthUserUtil.requireUsername();
 
@@ -66,20 +78,16 @@ public class CompareConceptServiceImpl implements CompareConceptService {
             Do not include markdown, code fences, or any extra commentary.
             """.formatted(safeSlice(selectionText, 1200), safeSlice(kb, 4000));
 
-        // 4) Call AI
-        String raw = cloudAiService.callGeminiApi(prompt);
+        // 4) Call AI in native JSON mode
+        String raw = cloudAiService.callGeminiJson(prompt, RESPONSE_SCHEMA);
 
-        // 5) Parse: tolerate raw text with or without leading/trailing text by extracting first JSON object
+        // 5) Decode straight into the response record (tolerates prose/fences around the object)
         try {
-            JsonNode node = extractFirstJsonObject(raw);
-            String key = text(node, "key_claim");
-            String agree = text(node, "agreement");
-            String drift = text(node, "drift_analysis");
-
+            var parsed = JsonExtractor.read(raw, CompareConceptController.CompareConceptResponse.class);
             return new CompareConceptController.CompareConceptResponse(
-                    safeNonEmpty(key),
-                    safeNonEmpty(agree),
-                    safeNonEmpty(drift)
+                    safeNonEmpty(parsed.key_claim()),
+                    safeNonEmpty(parsed.agreement()),
+                    safeNonEmpty(parsed.drift_analysis())
             );
         } catch (Exception e) {
             // Fallback: return minimal structured response
@@ -127,18 +135,6 @@ public class CompareConceptServiceImpl implements CompareConceptService {
         return sb.toString();
     }
 
-    private JsonNode extractFirstJsonObject(String text) throws Exception {
-        // Quick scan for first {...} block
-        int start = text.indexOf('{');
-        int end = text.lastIndexOf('}');
-        if (start >= 0 && end > start) {
-            String candidate = text.substring(start, end + 1);
-            return objectMapper.readTree(candidate);
-        }
-        // If model already returns clean JSON
-        return objectMapper.readTree(text);
-    }
-
     private String text(JsonNode node, String field) {
         if (node == null) return "";
         var n = node.get(field);
@@ -0,0 +1,140 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.entity.AiResponseCacheEntry;
+import com.extention.backend.repository.AiResponseCacheRepository;
+import com.extention.backend.service.LocalAiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+@Service
+public class LocalAiServiceImpl implements LocalAiService {
+
+    private static final int PURGE_BATCH = 1000;
+
+    private final AiResponseCacheRepository repository;
+    private final String model;
+    private final Duration persistentTtl;
+
+    // Tier 1: bounded heap cache, W-TinyLFU admission, weighed by approximate retained bytes
+    private final Cache<String, String> heap;
+
+    // Tier 2 metrics (tier 1 is bound through CaffeineCacheMetrics)
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+
+    public LocalAiServiceImpl(
+            AiResponseCacheRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${application.ai.model:gemini-2.5-flash}") String model,
+            @Value("${application.cache.ai.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${application.cache.ai.heap-ttl:PT6H}") Duration heapTtl,
+            @Value("${application.cache.ai.persistent-ttl:P7D}") Duration persistentTtl
+    ) {
+        this.repository = repository;
+        this.model = model;
+        this.persistentTtl = persistentTtl;
+        this.heap = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String k, String v) -> 2 * (k.length() + v.length()) + 64)
+                .expireAfterWrite(heapTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, heap, "ai.response.cache", "tier", "heap");
+        this.persistentHits = Counter.builder("ai.response.cache.persistent")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.persistentMisses = Counter.builder("ai.response.cache.persistent")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String keyFor(String prompt) {
+        return sha256Hex(model + "\n" + normalize(prompt));
+    }
+
+    @Override
+    public Optional<String> lookup(String prompt) {
+        String key = keyFor(prompt);
+        String hit = heap.getIfPresent(key);
+        if (hit != null) return Optional.of(hit);
+
+        try {
+            Instant cutoff = Instant.now().minus(persistentTtl);
+            Optional<AiResponseCacheEntry> row = repository.findById(key)
+                    .filter(e -> e.getStoredAt() != null && e.getStoredAt().isAfter(cutoff));
+            if (row.isPresent()) {
+                persistentHits.increment();
+                heap.put(key, row.get().getResponse());
+                return Optional.of(row.get().getResponse());
+            }
+        } catch (Exception ignored) {
+            // The cache must never fail a request; treat DB trouble as a miss
+        }
+        persistentMisses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void store(String prompt, String output) {
+        if (output == null || output.isBlank()) return;
+        String key = keyFor(prompt);
+        heap.put(key, output);
+        try {
+            repository.save(AiResponseCacheEntry.builder()
+                    .cacheKey(key)
+                    .model(model)
+                    .response(output)
+                    .storedAt(Instant.now())
+                    .build());
+        } catch (Exception ignored) {
+            // Heap tier still serves it; persistent write is best-effort
+        }
+    }
+
+    // Lookups already ignore rows past the TTL; this deletes them so the table doesn't grow without bound
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "${application.cache.ai.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(persistentTtl);
+        try {
+            int deleted;
+            do {
+                deleted = repository.deleteStoredBefore(cutoff, PURGE_BATCH);
+            } while (deleted == PURGE_BATCH);
+        } catch (Exception ignored) {
+            // Retried on the next run
+        }
+    }
+
+    // Whitespace inside the prompt is significant (code, Markdown), so only line endings,
+    // Unicode form and outer whitespace are normalized.
+    private static String normalize(String prompt) {
+        if (prompt == null) return "";
+        String s = Normalizer.normalize(prompt, Normalizer.Form.NFC);
+        return s.replace("\r\n", "\n").strip();
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -9,7 +9,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -21,9 +20,14 @@ public class NoteServiceImpl {
     private final AiService ai;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    @Transactional
+    // Categorized before touching the database; the single save is its own transaction
     public Note saveCategorized(String username, String sourceUrl, String content) {
-        String json = ai.categorizeNoteJson(content);
+        String json;
+        try {
+            json = mapper.writeValueAsString(ai.categorizeNote(content));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialize categories: " + e.getMessage(), e);
+        }
         Note note = Note.builder()
                 .username(username)
                 .sourceUrl(sourceUrl)
@@ -0,0 +1,159 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.service.PageCacheService;
+import com.extention.backend.utils.SegmentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+@Service
+public class PageCacheServiceImpl implements PageCacheService {
+
+    private static final int FORMAT = 1;
+
+    private final SegmentStore pageStore;
+    private final Duration ttl;
+
+    public PageCacheServiceImpl(
+            SegmentStore pageStore,
+            MeterRegistry meterRegistry,
+            @Value("${application.pages.cache.ttl:PT6H}") Duration ttl
+    ) {
+        this.pageStore = pageStore;
+        this.ttl = ttl;
+        Gauge.builder("page.cache.disk.bytes", pageStore, SegmentStore::diskBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.entries", pageStore, SegmentStore::size)
+                .register(meterRegistry);
+    }
+
+    // Scheme/host case, default ports, fragments and tracking parameters don't change the page
+    @Override
+    public String keyFor(String url) {
+        String canonical;
+        try {
+            URI u = URI.create(url.strip()).normalize();
+            String scheme = u.getScheme() == null ? "http" : u.getScheme().toLowerCase(Locale.ROOT);
+            String host = u.getHost() == null ? "" : u.getHost().toLowerCase(Locale.ROOT);
+            int port = u.getPort();
+            boolean defaultPort = port == -1 || ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+            String path = u.getRawPath() == null || u.getRawPath().isEmpty() ? "/" : u.getRawPath();
+
+            StringJoiner query = new StringJoiner("&");
+            if (u.getRawQuery() != null) {
+                for (String param : u.getRawQuery().split("&")) {
+                    String name = param.split("=", 2)[0].toLowerCase(Locale.ROOT);
+                    if (param.isEmpty() || name.startsWith("utm_") || name.equals("fbclid") || name.equals("gclid")) continue;
+                    query.add(param);
+                }
+            }
+            canonical = scheme + "://" + host + (defaultPort ? "" : ":" + port) + path
+                    + (query.length() == 0 ? "" : "?" + query);
+        } catch (IllegalArgumentException e) {
+            canonical = url;
+        }
+        return sha256Hex(canonical);
+    }
+
+    @Override
+    public Optional<CachedPage> lookup(String key) {
+        try {
+            return pageStore.get(key).map(PageCacheServiceImpl::decode);
+        } catch (Exception ignored) {
+            // A damaged record is just a miss; the next store replaces it
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean isFresh(CachedPage page) {
+        return page.fetchedAt().plus(ttl).isAfter(Instant.now());
+    }
+
+    @Override
+    public void store(String key, CachedPage page) {
+        try {
+            pageStore.put(key, encode(page));
+        } catch (Exception ignored) {
+            // Disk trouble must never fail extraction
+        }
+    }
+
+    private static byte[] encode(CachedPage page) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(page.text().length() / 3 + 64);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(FORMAT);
+            out.writeLong(page.fetchedAt().toEpochMilli());
+            writeNullable(out, page.etag());
+            writeNullable(out, page.lastModified());
+            writeText(out, page.title());
+            writeText(out, page.text());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CachedPage decode(byte[] value) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(value)))) {
+            if (in.readByte() != FORMAT) throw new IOException("Unknown page format");
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            String etag = readNullable(in);
+            String lastModified = readNullable(in);
+            String title = readText(in);
+            String text = readText(in);
+            return new CachedPage(title, text, etag, lastModified, fetchedAt);
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt cached page", e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // writeUTF caps at 64 KB; page text can be longer
+    private static void writeText(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
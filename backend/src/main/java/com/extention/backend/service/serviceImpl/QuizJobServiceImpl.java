@@ -0,0 +1,220 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.exception.UpstreamThrottledException;
+import com.extention.backend.response.QuizJobStatus;
+import com.extention.backend.response.QuizJobStatus.Stage;
+import com.extention.backend.service.QuizJobService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Service
+public class QuizJobServiceImpl implements QuizJobService {
+
+    private final QuizServiceImpl quizService;
+    private final ThreadPoolTaskExecutor quizJobExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int maxPerUser;
+    private final Duration retention;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String username;
+        final String url;
+        final boolean force;
+        final Instant createdAt = Instant.now();
+        final List<Consumer<QuizJobStatus>> listeners = new CopyOnWriteArrayList<>();
+        // Claimed by whichever comes first: run() starting, or cancel() of a job still in the queue
+        final AtomicBoolean started = new AtomicBoolean(false);
+        final AtomicBoolean released = new AtomicBoolean(false);
+
+        // Guarded by this
+        Stage stage = Stage.QUEUED;
+        boolean saving;
+        Long quizId;
+        String error;
+        Instant updatedAt = createdAt;
+        Future<?> future;
+
+        Job(String username, String url, boolean force) {
+            this.username = username;
+            this.url = url;
+            this.force = force;
+        }
+
+        synchronized QuizJobStatus snapshot() {
+            return new QuizJobStatus(id, stage, quizId, error, createdAt, updatedAt);
+        }
+    }
+
+    public QuizJobServiceImpl(
+            QuizServiceImpl quizService,
+            ThreadPoolTaskExecutor quizJobExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${application.quiz.jobs.max-per-user:2}") int maxPerUser,
+            @Value("${application.quiz.jobs.retention:PT1H}") Duration retention
+    ) {
+        this.quizService = quizService;
+        this.quizJobExecutor = quizJobExecutor;
+        this.meterRegistry = meterRegistry;
+        this.maxPerUser = maxPerUser;
+        this.retention = retention;
+        Gauge.builder("quiz.jobs.active", jobs, m -> m.values().stream().filter(j -> !j.snapshot().stage().isTerminal()).count())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public QuizJobStatus submit(String username, String url, boolean force) {
+        purgeExpired();
+
+        // Entries exist only while the user has jobs in flight; a throw leaves the map unchanged
+        inFlight.compute(username, (u, c) -> {
+            if (c == null) c = new AtomicInteger();
+            if (c.get() >= maxPerUser) throw new UpstreamThrottledException("quiz-jobs", Duration.ofSeconds(5), null);
+            c.incrementAndGet();
+            return c;
+        });
+
+        Job job = new Job(username, url, force);
+        jobs.put(job.id, job);
+        try {
+            Future<?> future = quizJobExecutor.submit(() -> run(job));
+            synchronized (job) {
+                job.future = future;
+            }
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            release(job);
+            throw new UpstreamThrottledException("quiz-jobs", Duration.ofSeconds(5), e);
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public Optional<QuizJobStatus> status(String username, String jobId) {
+        return find(username, jobId).map(Job::snapshot);
+    }
+
+    @Override
+    public Optional<Runnable> subscribe(String username, String jobId, Consumer<QuizJobStatus> listener) {
+        Optional<Job> found = find(username, jobId);
+        if (found.isEmpty()) return Optional.empty();
+        Job job = found.get();
+        job.listeners.add(listener);
+        // Registered before the snapshot, so a stage change in between is delivered (at worst twice)
+        listener.accept(job.snapshot());
+        return Optional.of(() -> job.listeners.remove(listener));
+    }
+
+    @Override
+    public Optional<QuizJobStatus> cancel(String username, String jobId) {
+        Optional<Job> found = find(username, jobId);
+        found.ifPresent(job -> {
+            Future<?> future;
+            synchronized (job) {
+                future = job.future;
+            }
+            if (!transition(job, Stage.CANCELLED, null, null)) return;
+            if (job.started.compareAndSet(false, true)) {
+                // Never started and now never will: nothing else frees its slot
+                if (future != null) future.cancel(false);
+                release(job);
+            } else if (future != null) {
+                // A blocking fetch or Gemini call ignores the interrupt; run() frees the slot once the worker stops
+                future.cancel(true);
+            }
+        });
+        return found.map(Job::snapshot);
+    }
+
+    private void run(Job job) {
+        // Cancelled while queued: cancel() already released the slot
+        if (!job.started.compareAndSet(false, true)) return;
+        try {
+            if (!transition(job, Stage.FETCHING, null, null)) return;
+            var quiz = quizService.generateFromUrl(job.username, job.url, job.force, stage -> {
+                if (!transition(job, stage, null, null)) throw new IllegalStateException("cancelled");
+            }, () -> {
+                if (!beginSave(job)) throw new IllegalStateException("cancelled");
+            });
+            transition(job, Stage.SAVED, quiz.getId(), null);
+        } catch (Exception e) {
+            transition(job, Stage.FAILED, null, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        } finally {
+            release(job);
+        }
+    }
+
+    // Last chance to cancel: once the save has begun the job finishes as SAVED
+    private boolean beginSave(Job job) {
+        synchronized (job) {
+            if (job.stage.isTerminal()) return false;
+            job.saving = true;
+            return true;
+        }
+    }
+
+    // False once the job is terminal (e.g. cancelled while running): later stages are dropped
+    private boolean transition(Job job, Stage stage, Long quizId, String error) {
+        QuizJobStatus status;
+        synchronized (job) {
+            if (job.stage.isTerminal() || (stage == Stage.CANCELLED && job.saving)) return false;
+            job.stage = stage;
+            job.quizId = quizId;
+            job.error = error;
+            job.updatedAt = Instant.now();
+            status = job.snapshot();
+        }
+        if (stage.isTerminal()) {
+            Counter.builder("quiz.jobs").tag("outcome", stage.name().toLowerCase()).register(meterRegistry).increment();
+        }
+        for (Consumer<QuizJobStatus> listener : job.listeners) {
+            try {
+                listener.accept(status);
+            } catch (Exception ignored) {
+                // A broken SSE connection must not fail the job
+                job.listeners.remove(listener);
+            }
+        }
+        return true;
+    }
+
+    private void release(Job job) {
+        if (!job.released.compareAndSet(false, true)) return;
+        inFlight.computeIfPresent(job.username, (u, c) -> c.decrementAndGet() == 0 ? null : c);
+    }
+
+    private Optional<Job> find(String username, String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.username.equals(username) ? Optional.of(job) : Optional.empty();
+    }
+
+    // Finished jobs stay pollable for the retention window
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(j -> {
+            QuizJobStatus s = j.snapshot();
+            return s.stage().isTerminal() && s.updatedAt().isBefore(cutoff);
+        });
+    }
+}
@@ -5,15 +5,34 @@ import com.extention.backend.entity.QuizAttempt;
 import com.extention.backend.mapper.ContentExtractor;
 import com.extention.backend.repository.QuizAttemptRepository;
 import com.extention.backend.repository.QuizRepository;
+import com.extention.backend.response.QuizJobStatus;
+import com.extention.backend.response.QuizPayload;
 import com.extention.backend.service.AiService;
+import com.extention.backend.utils.AnswerKeys;
 import com.extention.backend.utils.AuthUserUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
 @Service
 @RequiredArgsConstructor
 public class QuizServiceImpl {
@@ -25,39 +44,105 @@ public class QuizServiceImpl {
 
     private final QuizRepository quizRepository;
     private final QuizAttemptRepository attemptRepository;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    @Transactional
-    public Quiz generateFromUrl(String username, String url) {
-        var content = extractor.extractFromUrl(url);
-        String json = ai.generateQuizJson(content.title(), content.text());
-        Quiz quiz = Quiz.builder()
-                .username(username)
-                .sourceUrl(url)
-                .articleTitle(content.title())
-                .questionsJson(json)
-                .build();
-        return quizRepository.save(quiz);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${application.ai.model:gemini-2.5-flash}")
+    private String model;
+
+    @Value("${application.quiz.dedupe.max-age:P30D}")
+    private Duration dedupeMaxAge;
+
+    private record AnswerKey(String owner, byte[] key) {}
+
+    private final Cache<Long, AnswerKey> answerKeys = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    // Not transactional: the fetch and the Gemini call take seconds, and only the final save needs the database.
+    // beforeSave runs right before the quiz is written; throwing from it (job cancelled) skips the save.
+    public Quiz generateFromUrl(String username, String url, boolean force, Consumer<QuizJobStatus.Stage> progress,
+                                Runnable beforeSave) {
+        var content = extractor.extractFromUrl(url, () -> progress.accept(QuizJobStatus.Stage.EXTRACTING));
+        return generate(username, url, content.title(), content.text(), force, progress, beforeSave);
     }
 
-    @Transactional
-    public Long generateFromText(String text, String title, String sourceUrl) {
+    public Long generateFromText(String text, String title, String sourceUrl, boolean force) {
         if (text == null || text.isBlank()) {
             throw new IllegalArgumentException("text is required");
         }
         String username = AuthUserUtil.requireUsername();
 
         // IMPORTANT: Reuse the same pipeline as generateFromUrl to ensure identical JSON shape
-        String questionsJson = ai.generateQuizJson(safeTitle(title), safeSlice(text, 5000));
+        return generate(username, sourceUrl, safeTitle(title), safeSlice(text, 5000), force, stage -> {}, () -> {}).getId();
+    }
+
+    /**
+     * A recent quiz generated from the same content (by anyone) is cloned for the new owner instead of calling
+     * Gemini again; force skips the lookup.
+     */
+    private Quiz generate(String username, String sourceUrl, String title, String text, boolean force,
+                          Consumer<QuizJobStatus.Stage> progress, Runnable beforeSave) {
+        String hash = contentHash(title, text);
+        if (!force) {
+            Optional<Quiz> same = quizRepository.findFirstByContentHashAndCreatedAtAfterOrderByCreatedAtDesc(
+                    hash, Instant.now().minus(dedupeMaxAge));
+            if (same.isPresent()) {
+                meterRegistry.counter("quiz.generate", "result", "deduplicated").increment();
+                beforeSave.run();
+                return cacheKey(quizRepository.save(cloneFor(same.get(), username, sourceUrl, title)));
+            }
+        }
 
+        progress.accept(QuizJobStatus.Stage.GENERATING);
+        QuizPayload payload = ai.generateQuiz(title, text);
+        meterRegistry.counter("quiz.generate", "result", "generated").increment();
+        progress.accept(QuizJobStatus.Stage.VALIDATING);
+        if (payload == null || payload.questions() == null || payload.questions().isEmpty()) {
+            throw new RuntimeException("AI returned no questions");
+        }
         Quiz quiz = Quiz.builder()
                 .username(username)
                 .sourceUrl(sourceUrl)
-                .articleTitle(safeTitle(title))
-                .questionsJson(questionsJson)
+                .articleTitle(title)
+                .questionsJson(toJson(payload))
+                .questionsCount(payload.questions().size())
+                .answerKey(AnswerKeys.of(payload))
+                .contentHash(hash)
+                .build();
+        beforeSave.run();
+        return cacheKey(quizRepository.save(quiz));
+    }
+
+    private static Quiz cloneFor(Quiz source, String username, String sourceUrl, String title) {
+        return Quiz.builder()
+                .username(username)
+                .sourceUrl(sourceUrl)
+                .articleTitle(title)
+                .questionsJson(source.getQuestionsJson())
+                .questionsCount(source.getQuestionsCount())
+                .answerKey(source.getAnswerKey())
+                .contentHash(source.getContentHash())
                 .build();
-        quiz = quizRepository.save(quiz);
-        return quiz.getId();
+    }
+
+    // NFC, lower case, collapsed whitespace: trivial formatting differences between extractions hash the same
+    private String contentHash(String title, String text) {
+        String normalized = model + "\n" + normalize(title) + "\n" + normalize(text);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String s) {
+        if (s == null) return "";
+        String nfc = Normalizer.normalize(s, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(nfc).replaceAll(" ").strip();
     }
 
     public JsonNode getQuizQuestions(long quizId, String username) {
@@ -70,36 +155,50 @@ public class QuizServiceImpl {
         }
     }
 
+    // The answer key comes from cache, so a submit is one ownership check, an array comparison and one insert
     @Transactional
     public QuizAttempt gradeAndStore(long quizId, String username, int[] answers) {
-        Quiz q = quizRepository.findById(quizId).orElseThrow();
-        if (!q.getUsername().equals(username)) throw new RuntimeException("Forbidden");
+        AnswerKey key = answerKey(quizId);
+        if (!key.owner().equals(username)) throw new RuntimeException("Forbidden");
 
-        try {
-            var node = mapper.readTree(q.getQuestionsJson());
-            var arr = node.path("questions");
-            int correct = 0;
-            int[] correctIdx = new int[arr.size()];
-            for (int i = 0; i < arr.size(); i++) {
-                int idx = arr.get(i).path("correctIndex").asInt(-1); // relies on AiService JSON shape
-                correctIdx[i] = idx;
-                if (i < answers.length && answers[i] == idx) correct++;
+        QuizAttempt att = QuizAttempt.builder()
+                .quiz(quizRepository.getReferenceById(quizId))
+                .username(username)
+                .score(AnswerKeys.grade(key.key(), answers))
+                .answers(AnswerKeys.pack(answers))
+                .build();
+        return attemptRepository.save(att);
+    }
+
+    // Quizzes never change after creation, so a key can be cached for as long as it fits
+    private AnswerKey answerKey(long quizId) {
+        return answerKeys.get(quizId, id -> {
+            Quiz q = quizRepository.findById(id).orElseThrow();
+            byte[] key = q.getAnswerKey();
+            if (key == null) {
+                try {
+                    key = AnswerKeys.fromJson(mapper.readTree(q.getQuestionsJson()));
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed to grade quiz: " + e.getMessage(), e);
+                }
+                q.setAnswerKey(key);
+                quizRepository.save(q);
             }
-            var answersNode = mapper.createObjectNode();
-            var ansArr = answersNode.putArray("answers");
-            for (int x : answers) ansArr.add(x);
-            var corrArr = answersNode.putArray("correct");
-            for (int x : correctIdx) corrArr.add(x);
-
-            QuizAttempt att = QuizAttempt.builder()
-                    .quiz(q)
-                    .username(username)
-                    .score(correct)
-                    .answersJson(answersNode.toString())
-                    .build();
-            return attemptRepository.save(att);
+            return new AnswerKey(q.getUsername(), key);
+        });
+    }
+
+    // Students usually submit right after the quiz is shared
+    private Quiz cacheKey(Quiz quiz) {
+        answerKeys.put(quiz.getId(), new AnswerKey(quiz.getUsername(), quiz.getAnswerKey()));
+        return quiz;
+    }
+
+    private String toJson(QuizPayload payload) {
+        try {
+            return mapper.writeValueAsString(payload);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to grade quiz: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to serialize quiz: " + e.getMessage(), e);
         }
     }
 
@@ -4,13 +4,12 @@ import com.extention.backend.entity.Note;
 import com.extention.backend.entity.Suggestion;
 import com.extention.backend.repository.NoteRepository;
 import com.extention.backend.repository.SuggestionRepository;
+import com.extention.backend.response.SuggestionPicks;
 import com.extention.backend.service.AiService;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
@@ -23,7 +22,7 @@ public class ReadingServiceImpl {
     private final AiService ai;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    @Transactional
+    // Reads, then the Gemini pick, then one short write: no transaction spans the upstream call
     public List<Suggestion> suggestForUser(String username, String baseUrl, String baseSummary) {
         // Candidates from user's saved notes (distinct by sourceUrl)
         Map<String, String> urlToTitle = new LinkedHashMap<>();
@@ -40,28 +39,25 @@ public class ReadingServiceImpl {
             o.put("title", t);
             candidates.add(o);
         });
-        String suggestionsJson = ai.selectSuggestionsJson(baseSummary, candidates.toString());
+        SuggestionPicks picks = ai.selectSuggestions(baseSummary, candidates.toString());
 
-        try {
-            JsonNode node = mapper.readTree(suggestionsJson).path("suggestions");
-            List<Suggestion> out = new ArrayList<>();
-            for (int i = 0; i < Math.min(3, node.size()); i++) {
-                JsonNode s = node.get(i);
-                Suggestion saved = suggestionRepository.save(
-                        Suggestion.builder()
-                                .username(username)
-                                .baseSourceUrl(baseUrl)
-                                .suggestedUrl(s.path("url").asText(""))
-                                .title(s.path("title").asText(""))
-                                .reason(s.path("reason").asText(""))
-                                .build()
-                );
-                out.add(saved);
-            }
-            return out;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse suggestions JSON: " + e.getMessage(), e);
+        List<Suggestion> out = new ArrayList<>();
+        List<SuggestionPicks.Pick> chosen = picks.suggestions() == null ? List.of() : picks.suggestions();
+        for (SuggestionPicks.Pick s : chosen.subList(0, Math.min(3, chosen.size()))) {
+            out.add(Suggestion.builder()
+                    .username(username)
+                    .baseSourceUrl(baseUrl)
+                    .suggestedUrl(nvl(s.url()))
+                    .title(nvl(s.title()))
+                    .reason(nvl(s.reason()))
+                    .build());
         }
+        // saveAll runs in a single transaction of its own
+        return suggestionRepository.saveAll(out);
+    }
+
+    private static String nvl(String s) {
+        return s == null ? "" : s;
     }
 
     public List<Suggestion> recentSuggestions(String username) {
@@ -0,0 +1,159 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.entity.SearchCacheEntry;
+import com.extention.backend.repository.SearchCacheRepository;
+import com.extention.backend.response.SearchHit;
+import com.extention.backend.service.SearchCacheService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class SearchCacheServiceImpl implements SearchCacheService {
+
+    private static final TypeReference<List<SearchHit>> HITS = new TypeReference<>() {};
+    private static final int PURGE_BATCH = 1000;
+
+    private final SearchCacheRepository repository;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Duration failureTtl;
+
+    // Each entry carries its own TTL: results, empty results and failures age out at different rates
+    private record Cached(List<SearchHit> hits, Duration ttl) {}
+
+    private final Cache<String, Cached> heap;
+
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+    private final Counter quotaSaved;
+
+    public SearchCacheServiceImpl(
+            SearchCacheRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${application.cache.search.max-entries:20000}") long maxEntries,
+            @Value("${application.cache.search.ttl:PT12H}") Duration ttl,
+            @Value("${application.cache.search.negative-ttl:PT30M}") Duration negativeTtl,
+            @Value("${application.cache.search.failure-ttl:PT2M}") Duration failureTtl
+    ) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.failureTtl = failureTtl;
+        this.heap = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.writing((String k, Cached v) -> v.ttl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, heap, "search.cache", "tier", "heap");
+        this.persistentHits = Counter.builder("search.cache.persistent")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.persistentMisses = Counter.builder("search.cache.persistent")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.quotaSaved = Counter.builder("search.cache.quota.saved")
+                .description("Custom Search calls answered from cache")
+                .register(meterRegistry);
+    }
+
+    // Same inputs buildUrl turns into q/num/lr/gl; key and cx are deployment constants.
+    // Case is kept: Custom Search can rank differently for "Java" and "java", so they are separate entries
+    @Override
+    public String keyFor(String query, int num, String lang, String region) {
+        String q = query == null ? "" : query.strip();
+        return sha256Hex(q + "\n" + num + "\n" + nvl(lang) + "\n" + nvl(region));
+    }
+
+    @Override
+    public Optional<List<SearchHit>> lookup(String key) {
+        Cached hit = heap.getIfPresent(key);
+        if (hit != null) {
+            quotaSaved.increment();
+            return Optional.of(hit.hits());
+        }
+
+        try {
+            Instant now = Instant.now();
+            Optional<SearchCacheEntry> row = repository.findById(key)
+                    .filter(e -> e.getExpiresAt() != null && e.getExpiresAt().isAfter(now));
+            if (row.isPresent()) {
+                List<SearchHit> hits = mapper.readValue(row.get().getHitsJson(), HITS);
+                heap.put(key, new Cached(hits, Duration.between(now, row.get().getExpiresAt())));
+                persistentHits.increment();
+                quotaSaved.increment();
+                return Optional.of(hits);
+            }
+        } catch (Exception ignored) {
+            // The cache must never fail a request; treat DB trouble as a miss
+        }
+        persistentMisses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void store(String key, String query, List<SearchHit> hits) {
+        Duration entryTtl = hits.isEmpty() ? negativeTtl : ttl;
+        heap.put(key, new Cached(List.copyOf(hits), entryTtl));
+        try {
+            repository.save(SearchCacheEntry.builder()
+                    .cacheKey(key)
+                    .query(query)
+                    .hitsJson(mapper.writeValueAsString(hits))
+                    .expiresAt(Instant.now().plus(entryTtl))
+                    .build());
+        } catch (Exception ignored) {
+            // Heap tier still serves it; persistent write is best-effort
+        }
+    }
+
+    @Override
+    public void storeFailure(String key) {
+        heap.put(key, new Cached(List.of(), failureTtl));
+    }
+
+    // Expired results and negative entries are never read again; delete them so the table stays bounded
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "${application.cache.search.purge-interval:PT30M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        try {
+            int deleted;
+            do {
+                deleted = repository.deleteExpiredBefore(now, PURGE_BATCH);
+            } while (deleted == PURGE_BATCH);
+        } catch (Exception ignored) {
+            // Retried on the next run
+        }
+    }
+
+    private static String nvl(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
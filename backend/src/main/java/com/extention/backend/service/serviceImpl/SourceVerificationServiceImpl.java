@@ -0,0 +1,191 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.mapper.ContentExtractor;
+import com.extention.backend.response.SearchItem;
+import com.extention.backend.service.SourceVerificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.text.BreakIterator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class SourceVerificationServiceImpl implements SourceVerificationService {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "the", "and", "for", "was", "were", "are", "with", "from", "that", "this", "his", "her", "has",
+            "had", "have", "who", "which", "into", "its", "their", "they", "been", "also", "not", "but", "one");
+    private static final int HOST_STRIPES = 64;
+    private static final int MIN_SENTENCE = 20;
+    private static final int MAX_SENTENCE = 400;
+    private static final int MAX_REASON = 240;
+
+    private final ContentExtractor extractor;
+    private final ThreadPoolTaskExecutor verifyExecutor;
+    private final int topN;
+    private final Duration deadline;
+
+    // Per-host concurrency cap across all requests; striped by host hash so memory stays bounded
+    private final Semaphore[] hostPermits = new Semaphore[HOST_STRIPES];
+
+    private final Counter verified;
+    private final Counter unmatched;
+    private final Counter timedOut;
+    private final Counter hostBusy;
+
+    public SourceVerificationServiceImpl(
+            ContentExtractor extractor,
+            @Qualifier("verifyExecutor") ThreadPoolTaskExecutor verifyExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${application.search.verify.top-n:3}") int topN,
+            @Value("${application.search.verify.deadline:PT3S}") Duration deadline,
+            @Value("${application.search.verify.max-per-host:2}") int maxPerHost
+    ) {
+        this.extractor = extractor;
+        this.verifyExecutor = verifyExecutor;
+        this.topN = Math.max(1, topN);
+        this.deadline = deadline;
+        for (int i = 0; i < HOST_STRIPES; i++) hostPermits[i] = new Semaphore(Math.max(1, maxPerHost));
+        this.verified = outcome(meterRegistry, "verified");
+        this.unmatched = outcome(meterRegistry, "unmatched");
+        this.timedOut = outcome(meterRegistry, "timeout");
+        this.hostBusy = outcome(meterRegistry, "host_busy");
+    }
+
+    @Override
+    public void verify(String claim, List<SearchItem> items) {
+        Set<String> claimTerms = terms(claim);
+        if (claimTerms.isEmpty() || items == null || items.isEmpty()) return;
+
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        List<SearchItem> top = items.subList(0, Math.min(topN, items.size()));
+        List<Future<String>> futures = new ArrayList<>(top.size());
+        try {
+            for (SearchItem item : top) {
+                futures.add(verifyExecutor.submit(() -> bestSentence(item.getUrl(), claimTerms)));
+            }
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: verify what was accepted, keep search snippets for the rest
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Future<String> f = futures.get(i);
+            try {
+                long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+                String sentence = f.get(remaining, TimeUnit.NANOSECONDS);
+                if (sentence != null) top.get(i).setReason(reason(sentence));
+            } catch (TimeoutException e) {
+                // Slow host: keep the snippet. The interrupt stops the transfer at its next read, and each read
+                // times out at application.http.verify.read-timeout, so the worker and host permit are freed soon
+                f.cancel(true);
+                timedOut.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(x -> x.cancel(true));
+                return;
+            } catch (ExecutionException e) {
+                // Fetch/extract failed: keep the snippet
+            }
+        }
+    }
+
+    private String bestSentence(String url, Set<String> claimTerms) {
+        Semaphore permits = hostPermits[Math.floorMod(host(url).hashCode(), HOST_STRIPES)];
+        if (!permits.tryAcquire()) {
+            hostBusy.increment();
+            return null;
+        }
+        try {
+            String text = extractor.extractForVerification(url).text();
+            String best = null;
+            double bestScore = 0;
+            int needed = claimTerms.size() <= 2 ? 1 : 2;
+
+            BreakIterator it = BreakIterator.getSentenceInstance(Locale.ROOT);
+            it.setText(text);
+            int start = it.first();
+            for (int end = it.next(); end != BreakIterator.DONE; start = end, end = it.next()) {
+                if (Thread.currentThread().isInterrupted()) return null;
+                int len = end - start;
+                if (len < MIN_SENTENCE || len > MAX_SENTENCE) continue;
+                String sentence = text.substring(start, end);
+                double score = score(sentence, claimTerms, needed);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = sentence.strip();
+                }
+            }
+            if (best == null) unmatched.increment();
+            else verified.increment();
+            return best;
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Distinct claim terms in the sentence, damped by sentence length so long run-ons don't win by volume
+    private static double score(String sentence, Set<String> claimTerms, int needed) {
+        Set<String> seen = new HashSet<>();
+        int tokens = 0;
+        int n = sentence.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(sentence.charAt(i))) i++;
+            int s = i;
+            while (i < n && Character.isLetterOrDigit(sentence.charAt(i))) i++;
+            if (s == i) break;
+            tokens++;
+            if (i - s >= 3) {
+                String t = sentence.substring(s, i).toLowerCase(Locale.ROOT);
+                if (claimTerms.contains(t)) seen.add(t);
+            }
+        }
+        if (seen.size() < needed) return 0;
+        return seen.size() / Math.sqrt(Math.max(tokens, 8));
+    }
+
+    private static Set<String> terms(String text) {
+        Set<String> out = new HashSet<>();
+        if (text == null) return out;
+        for (String t : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (t.length() >= 3 && !STOPWORDS.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    private static String reason(String sentence) {
+        String s = sentence.length() > MAX_REASON ? sentence.substring(0, MAX_REASON - 3) + "..." : sentence;
+        return "\"" + s + "\" — found on page";
+    }
+
+    private static String host(String url) {
+        try {
+            String h = URI.create(url).getHost();
+            return h == null ? "" : h.toLowerCase(Locale.ROOT);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("search.verify")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,256 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.entity.TranslationMemoryEntry;
+import com.extention.backend.repository.TranslationMemoryRepository;
+import com.extention.backend.request.AiRequest;
+import com.extention.backend.response.AiResponse;
+import com.extention.backend.service.CloudAiService;
+import com.extention.backend.service.TranslationMemoryService;
+import com.extention.backend.utils.JsonExtractor;
+import com.extention.backend.utils.MarkdownSegmenter;
+import com.extention.backend.utils.MarkdownSegmenter.Segment;
+import com.extention.backend.utils.TextChunker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class TranslationMemoryServiceImpl implements TranslationMemoryService {
+
+    private static final int PURGE_BATCH = 1000;
+
+    private final TranslationMemoryRepository repository;
+    private final CloudAiService cloudAiService;
+    private final String model;
+    private final int batchTokens;
+    private final Duration retention;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String SCHEMA = """
+            {
+              "type": "OBJECT",
+              "properties": {
+                "translations": { "type": "ARRAY", "items": { "type": "STRING" } }
+              },
+              "required": ["translations"]
+            }
+            """;
+
+    private final Counter segmentHits;
+    private final Counter segmentMisses;
+
+    public TranslationMemoryServiceImpl(
+            TranslationMemoryRepository repository,
+            CloudAiService cloudAiService,
+            MeterRegistry meterRegistry,
+            @Value("${application.ai.model:gemini-2.5-flash}") String model,
+            @Value("${application.ai.translation.batch-tokens:3000}") int batchTokens,
+            @Value("${application.ai.translation.retention:P90D}") Duration retention
+    ) {
+        this.repository = repository;
+        this.cloudAiService = cloudAiService;
+        this.model = model;
+        this.batchTokens = batchTokens;
+        this.retention = retention;
+        this.segmentHits = Counter.builder("ai.translation.memory.segments")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.segmentMisses = Counter.builder("ai.translation.memory.segments")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AiResponse translate(AiRequest request) {
+        String text = request.text() == null ? "" : request.text();
+        String targetLang = normalizeLang(request.targetLang());
+        String persona = request.persona() == null ? "general" : request.persona().trim().toLowerCase(Locale.ROOT);
+
+        List<Segment> segments = MarkdownSegmenter.segment(text);
+
+        // Distinct translatable segments by hash; headers and boilerplate often repeat within one page too
+        Map<String, String> sourceByHash = new LinkedHashMap<>();
+        for (Segment s : segments) {
+            if (s.translatable()) sourceByHash.putIfAbsent(hash(persona, s.text()), s.text());
+        }
+
+        Map<String, String> translated = new HashMap<>(lookup(targetLang, sourceByHash));
+        segmentHits.increment(translated.size());
+
+        Map<String, String> missing = new LinkedHashMap<>();
+        sourceByHash.forEach((h, src) -> {
+            if (!translated.containsKey(h)) missing.put(h, src);
+        });
+        segmentMisses.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, String> fresh = translateMissing(missing, targetLang, persona);
+            translated.putAll(fresh);
+            record(targetLang, missing, fresh);
+        }
+
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        for (Segment s : segments) {
+            out.append(s.translatable() ? translated.get(hash(persona, s.text())) : s.text());
+        }
+        return AiResponse.builder()
+                .result(out.toString())
+                .fromLocal(missing.isEmpty())
+                .build();
+    }
+
+    // One indexed query for every segment of the request; a DB outage just means everything is a miss
+    private Map<String, String> lookup(String targetLang, Map<String, String> sourceByHash) {
+        Map<String, String> found = new HashMap<>();
+        if (sourceByHash.isEmpty()) return found;
+        try {
+            for (TranslationMemoryEntry e : repository.findByTargetLangAndSourceHashIn(targetLang, sourceByHash.keySet())) {
+                found.put(e.getSourceHash(), e.getTranslation());
+            }
+        } catch (Exception ignored) {
+        }
+        return found;
+    }
+
+    // Missing segments go out in as few prompts as the batch budget allows (usually one)
+    private Map<String, String> translateMissing(Map<String, String> missing, String targetLang, String persona) {
+        Map<String, String> result = new HashMap<>();
+        List<String> hashes = new ArrayList<>();
+        int tokens = 0;
+        for (Map.Entry<String, String> e : missing.entrySet()) {
+            int t = TextChunker.estimateTokens(e.getValue());
+            if (!hashes.isEmpty() && tokens + t > batchTokens) {
+                translateBatch(hashes, missing, targetLang, persona, result);
+                hashes = new ArrayList<>();
+                tokens = 0;
+            }
+            hashes.add(e.getKey());
+            tokens += t;
+        }
+        if (!hashes.isEmpty()) translateBatch(hashes, missing, targetLang, persona, result);
+        return result;
+    }
+
+    // A reply with the wrong number of items can't be aligned; halve the batch and try again
+    private void translateBatch(List<String> hashes, Map<String, String> sources, String targetLang,
+                                String persona, Map<String, String> result) {
+        List<String> texts = hashes.stream().map(sources::get).toList();
+        List<String> out = parseTranslations(cloudAiService.callGeminiJson(batchPrompt(texts, targetLang, persona), SCHEMA));
+        if (out != null && out.size() == texts.size()) {
+            for (int i = 0; i < hashes.size(); i++) result.put(hashes.get(i), out.get(i));
+            return;
+        }
+        if (hashes.size() == 1) {
+            throw new RuntimeException("AI did not return a usable translation");
+        }
+        int mid = hashes.size() / 2;
+        translateBatch(hashes.subList(0, mid), sources, targetLang, persona, result);
+        translateBatch(hashes.subList(mid, hashes.size()), sources, targetLang, persona, result);
+    }
+
+    private String batchPrompt(List<String> texts, String targetLang, String persona) {
+        String segmentsJson;
+        try {
+            segmentsJson = mapper.writeValueAsString(texts);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        String tone = switch (persona) {
+            case "student" -> "Use simple, clear wording.";
+            case "researcher" -> "Use a precise, formal register.";
+            case "editor" -> "Use polished, concise wording.";
+            default -> "Keep a balanced, natural tone.";
+        };
+        return """
+                Translate each segment of the JSON array below to %s. %s
+                Preserve meaning, inline Markdown, inline code, URLs and placeholders exactly.
+                Output STRICT JSON (no extra text) matching:
+                { "translations": ["string", "..."] }
+                Rules:
+                - Exactly %d translations, in the same order as the input segments.
+                - Translate each segment on its own; do not merge or split segments.
+
+                Segments:
+                %s
+                """.formatted(targetLang, tone, texts.size(), segmentsJson);
+    }
+
+    private List<String> parseTranslations(String raw) {
+        try {
+            return JsonExtractor.read(raw, Translations.class).translations();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    record Translations(List<String> translations) {}
+
+    // Segments are kept for the retention window and then relearned; rows under an old model's hash go too
+    @Scheduled(initialDelayString = "PT5M", fixedDelayString = "${application.ai.translation.purge-interval:PT6H}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        try {
+            int deleted;
+            do {
+                deleted = repository.deleteStoredBefore(cutoff, PURGE_BATCH);
+            } while (deleted == PURGE_BATCH);
+        } catch (Exception ignored) {
+            // Retried on the next run
+        }
+    }
+
+    private void record(String targetLang, Map<String, String> sources, Map<String, String> translations) {
+        Instant now = Instant.now();
+        List<TranslationMemoryEntry> rows = new ArrayList<>(translations.size());
+        translations.forEach((h, t) -> rows.add(TranslationMemoryEntry.builder()
+                .sourceHash(h)
+                .targetLang(targetLang)
+                .sourceText(sources.get(h))
+                .translation(t)
+                .storedAt(now)
+                .build()));
+        try {
+            repository.saveAll(rows);
+        } catch (Exception batchFailed) {
+            // Usually a concurrent request stored one of the same segments first; keep the rest
+            for (TranslationMemoryEntry row : rows) {
+                try {
+                    repository.save(row);
+                } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    private String hash(String persona, String segment) {
+        String normalized = Normalizer.normalize(segment, Normalizer.Form.NFC).strip();
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest((model + "\n" + persona + "\n" + normalized).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalizeLang(String lang) {
+        String v = lang == null ? "" : lang.trim().toLowerCase(Locale.ROOT);
+        return v.length() > 32 ? v.substring(0, 32) : v;
+    }
+}
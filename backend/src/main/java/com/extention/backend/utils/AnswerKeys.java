@@ -0,0 +1,52 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.QuizPayload;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Packed answer indexes: one byte per question, -1 for "none". Used for Quiz.answerKey and QuizAttempt.answers
+ * (bytea), so grading is a plain array comparison instead of a walk over questionsJson.
+ */
+public final class AnswerKeys {
+
+    private static final byte NONE = -1;
+
+    private AnswerKeys() {}
+
+    public static byte[] of(QuizPayload payload) {
+        List<QuizPayload.Question> questions = payload.questions() == null ? List.of() : payload.questions();
+        byte[] key = new byte[questions.size()];
+        for (int i = 0; i < key.length; i++) key[i] = pack(questions.get(i).correctIndex());
+        return key;
+    }
+
+    // For quizzes stored before answerKey existed
+    public static byte[] fromJson(JsonNode quiz) {
+        JsonNode questions = quiz.path("questions");
+        byte[] key = new byte[questions.isArray() ? questions.size() : 0];
+        for (int i = 0; i < key.length; i++) key[i] = pack(questions.get(i).path("correctIndex").asInt(-1));
+        return key;
+    }
+
+    public static byte[] pack(int[] answers) {
+        byte[] packed = new byte[answers.length];
+        for (int i = 0; i < answers.length; i++) packed[i] = pack(answers[i]);
+        return packed;
+    }
+
+    // Answers past the end of the key, and unanswered questions, score nothing
+    public static int grade(byte[] key, int[] answers) {
+        int n = Math.min(key.length, answers.length);
+        int correct = 0;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != NONE && key[i] == answers[i]) correct++;
+        }
+        return correct;
+    }
+
+    private static byte pack(int index) {
+        return index < 0 || index > Byte.MAX_VALUE ? NONE : (byte) index;
+    }
+}
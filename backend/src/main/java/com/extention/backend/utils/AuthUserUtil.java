@@ -14,4 +14,10 @@ public final class AuthUserUtil {
 
         return auth.getName();
     }
-}
\ No newline at end of file
+
+    // For attribution (scheduling, metrics) where an anonymous caller is acceptable
+    public static String usernameOrAnonymous() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth.getName() == null ? "anonymousUser" : auth.getName();
+    }
+}
@@ -0,0 +1,66 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.SearchHit;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for Custom Search responses: reads title/link/snippet of each items[] entry and skips
+ * everything else (pagemap, metatags, thumbnails, queries, context...) without materializing it.
+ */
+public final class CseCodec {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private CseCodec() {}
+
+    public static List<SearchHit> readItems(InputStream in) throws IOException {
+        List<SearchHit> hits = new ArrayList<>();
+        try (JsonParser p = JSON.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        if (p.currentToken() == JsonToken.START_OBJECT) {
+                            hits.add(readItem(p));
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static SearchHit readItem(JsonParser p) throws IOException {
+        String title = "", link = "", snippet = "";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "title" -> title = p.getText();
+                case "link" -> link = p.getText();
+                case "snippet" -> snippet = p.getText();
+                default -> {}
+            }
+        }
+        return new SearchHit(title, link, snippet);
+    }
+}
@@ -0,0 +1,219 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.exception.UpstreamThrottledException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-user deficit round robin in front of a fixed pool of worker threads.
+ * Each user has its own FIFO queue; on every round a backlogged user earns quantum * weight credits
+ * and spends them on the cost (estimated tokens) of its queued jobs. A user batch-translating a long
+ * page therefore gets its fair share of the workers instead of all of them.
+ * Callers block until their job has run, so the scheduler is transparent to synchronous code.
+ */
+public final class FairScheduler {
+
+    private final String name;
+    private final long quantum;
+    private final int maxQueueDepth;
+    private final int defaultWeight;
+    private final Map<String, Integer> weights;
+    // One wait timer per configured weight: usernames would make the tag unbounded and leak who is queued
+    private final Map<Integer, Timer> waitTimers = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    // Guarded by lock
+    private final Map<String, UserQueue> queues = new HashMap<>();
+    private final ArrayDeque<UserQueue> active = new ArrayDeque<>();
+    private int queued;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public FairScheduler(String name, int workerCount, long quantum, int maxQueueDepth, int defaultWeight,
+                         Map<String, Integer> weights, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.quantum = Math.max(1, quantum);
+        this.maxQueueDepth = Math.max(1, maxQueueDepth);
+        this.defaultWeight = Math.max(1, defaultWeight);
+        this.weights = weights == null ? Map.of() : Map.copyOf(weights);
+        for (int weight : this.weights.values()) registerWaitTimer(meterRegistry, Math.max(1, weight));
+        registerWaitTimer(meterRegistry, this.defaultWeight);
+
+        Gauge.builder("llm.scheduler.queued", this, FairScheduler::queuedJobs)
+                .tag("scheduler", name)
+                .register(meterRegistry);
+
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread t = new Thread(this::workLoop, name + "-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    private void registerWaitTimer(MeterRegistry meterRegistry, int weight) {
+        waitTimers.computeIfAbsent(weight, w -> Timer.builder("llm.scheduler.wait")
+                .tag("scheduler", name)
+                .tag("weight", String.valueOf(w))
+                .register(meterRegistry));
+    }
+
+    // Runs work on a scheduler worker in the user's fair share and returns its result (or rethrows its error)
+    @SuppressWarnings("unchecked")
+    public <T> T run(String user, long cost, Supplier<T> work) {
+        int weight = Math.max(1, weights.getOrDefault(user, defaultWeight));
+        Job job = new Job(user, Math.max(1, cost), waitTimers.get(weight), work);
+        lock.lock();
+        try {
+            UserQueue q = queues.computeIfAbsent(user, u -> new UserQueue(u, weight));
+            if (q.jobs.size() >= maxQueueDepth) {
+                throw new UpstreamThrottledException(name, Duration.ofSeconds(2), null);
+            }
+            q.jobs.addLast(job);
+            queued++;
+            if (!q.active) {
+                q.active = true;
+                active.addLast(q);
+            }
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            return (T) job.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            withdraw(job);
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void workLoop() {
+        while (running) {
+            Job job;
+            lock.lock();
+            try {
+                while ((job = next()) == null) {
+                    ready.await();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            job.waitTimer.record(System.nanoTime() - job.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                job.result.complete(job.work.get());
+            } catch (Throwable t) {
+                job.result.completeExceptionally(t);
+            }
+        }
+    }
+
+    // Deficit round robin; caller holds lock
+    private Job next() {
+        while (!active.isEmpty()) {
+            UserQueue q = active.peekFirst();
+            Job head = q.jobs.peekFirst();
+            if (head == null) {
+                deactivate(q);
+                continue;
+            }
+            if (q.deficit >= head.cost) {
+                q.deficit -= head.cost;
+                q.jobs.pollFirst();
+                queued--;
+                if (q.jobs.isEmpty()) deactivate(q);
+                return head;
+            }
+            // Not enough credit for the head job: earn this round's quantum and go to the back
+            q.deficit += quantum * q.weight;
+            active.pollFirst();
+            active.addLast(q);
+        }
+        return null;
+    }
+
+    private void deactivate(UserQueue q) {
+        active.remove(q);
+        q.active = false;
+        q.deficit = 0;
+        queues.remove(q.user);
+    }
+
+    private void withdraw(Job job) {
+        lock.lock();
+        try {
+            UserQueue q = queues.get(job.user);
+            if (q != null && q.jobs.remove(job)) queued--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int queuedJobs() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class UserQueue {
+        final String user;
+        final int weight;
+        final ArrayDeque<Job> jobs = new ArrayDeque<>();
+        long deficit;
+        boolean active;
+
+        UserQueue(String user, int weight) {
+            this.user = user;
+            this.weight = Math.max(1, weight);
+        }
+    }
+
+    private static final class Job {
+        final String user;
+        final long cost;
+        final Timer waitTimer;
+        final Supplier<?> work;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Job(String user, long cost, Timer waitTimer, Supplier<?> work) {
+            this.user = user;
+            this.cost = cost;
+            this.waitTimer = waitTimer;
+            this.work = work;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.extention.backend.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Word-level Aho-Corasick automaton over "term -> region" entries (multi-word terms allowed).
+ * Matching runs once over the already-tokenized text, so terms only match on word boundaries
+ * ("india" does not fire inside "indiana") and cost is linear in the number of tokens.
+ * After loading, the vocabulary and transitions live in primitive hash tables that are probed
+ * straight from the text, so a scan allocates nothing per token.
+ */
+final class Gazetteer {
+
+    // Build-time trie, flattened into the tables below by build()
+    private final List<Map<String, Integer>> trie = new ArrayList<>();
+    private final List<String> termRegion = new ArrayList<>();
+
+    private String[] words;       // vocabulary (lowercase); index = word id
+    private int[] wordSlots;      // open addressing on the case-folded hash -> word id + 1
+    private long[] edgeKeys;      // open addressing: state * words.length + word id -> edgeTargets
+    private int[] edgeTargets;
+    private int[] fail;
+    private int[] dictLink;       // nearest state on the fail chain that ends a term, or -1
+    private int[] regionOf;       // region id of the term ending at a state, or -1
+    private String[] regions;
+
+    private Gazetteer() {
+        newState();
+    }
+
+    // Lines of "term<TAB>REGION"; blank lines and # comments are skipped
+    static Gazetteer load(InputStream in) throws IOException {
+        Gazetteer g = new Gazetteer();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                if (tab <= 0) continue;
+                g.add(line.substring(0, tab).strip().toLowerCase(Locale.ROOT).split(" +"), line.substring(tab + 1).strip());
+            }
+        }
+        g.build();
+        return g;
+    }
+
+    /** Region votes over one text; feed it every word token in order. Not thread-safe. */
+    final class Tally {
+        private final int[] votes = new int[regions.length];
+        private final int[] firstVote = new int[regions.length];
+        private int voteCount;
+        private int state;
+
+        void add(CharSequence text, int start, int end) {
+            int word = wordId(text, start, end);
+            int to;
+            while ((to = word < 0 ? -1 : edge(state, word)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(to, 0);
+            for (int s = regionOf[state] >= 0 ? state : dictLink[state]; s > 0; s = dictLink[s]) {
+                int r = regionOf[s];
+                if (votes[r]++ == 0) firstVote[r] = voteCount;
+                voteCount++;
+            }
+        }
+
+        // Most frequently mentioned region (first seen wins ties), or "" when nothing matched
+        String bestRegion() {
+            int best = -1;
+            for (int r = 0; r < votes.length; r++) {
+                if (votes[r] == 0) continue;
+                if (best < 0 || votes[r] > votes[best] || (votes[r] == votes[best] && firstVote[r] < firstVote[best])) {
+                    best = r;
+                }
+            }
+            return best < 0 ? "" : regions[best];
+        }
+    }
+
+    Tally tally() {
+        return new Tally();
+    }
+
+    String bestRegion(List<String> lowerTokens) {
+        Tally tally = tally();
+        for (String token : lowerTokens) tally.add(token, 0, token.length());
+        return tally.bestRegion();
+    }
+
+    // ---------- lookup ----------
+
+    private int wordId(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + Character.toLowerCase(text.charAt(i));
+        int mask = wordSlots.length - 1;
+        for (int slot = mix(h) & mask; wordSlots[slot] != 0; slot = (slot + 1) & mask) {
+            String w = words[wordSlots[slot] - 1];
+            if (w.length() == end - start && matches(w, text, start)) return wordSlots[slot] - 1;
+        }
+        return -1;
+    }
+
+    private static boolean matches(String word, CharSequence text, int start) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) != Character.toLowerCase(text.charAt(start + i))) return false;
+        }
+        return true;
+    }
+
+    private int edge(int state, int word) {
+        long key = (long) state * words.length + word;
+        int mask = edgeKeys.length - 1;
+        for (int slot = mix(Long.hashCode(key)) & mask; edgeTargets[slot] != 0; slot = (slot + 1) & mask) {
+            if (edgeKeys[slot] == key) return edgeTargets[slot];
+        }
+        return -1;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // ---------- construction ----------
+
+    private int newState() {
+        trie.add(new HashMap<>(4));
+        termRegion.add(null);
+        return trie.size() - 1;
+    }
+
+    private void add(String[] words, String code) {
+        int state = 0;
+        for (String w : words) {
+            Integer to = trie.get(state).get(w);
+            if (to == null) {
+                to = newState();
+                trie.get(state).put(w, to);
+            }
+            state = to;
+        }
+        termRegion.set(state, code);
+    }
+
+    // Breadth-first fail links, as in the classic construction
+    private void build() {
+        int n = trie.size();
+        fail = new int[n];
+        dictLink = new int[n];
+        dictLink[0] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : trie.get(0).values()) {
+            fail[child] = 0;
+            dictLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<String, Integer> e : trie.get(state).entrySet()) {
+                int child = e.getValue();
+                int f = fail[state];
+                Integer to;
+                while ((to = trie.get(f).get(e.getKey())) == null && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = to == null || to == child ? 0 : to;
+                dictLink[child] = termRegion.get(fail[child]) != null ? fail[child] : dictLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        flatten();
+    }
+
+    private void flatten() {
+        Map<String, Integer> wordIds = new HashMap<>();
+        Map<String, Integer> regionIds = new HashMap<>();
+        int edges = 0;
+        for (Map<String, Integer> t : trie) {
+            for (String w : t.keySet()) wordIds.putIfAbsent(w, wordIds.size());
+            edges += t.size();
+        }
+
+        words = new String[wordIds.size()];
+        wordIds.forEach((w, id) -> words[id] = w);
+        wordSlots = new int[tableSize(words.length)];
+        for (int id = 0; id < words.length; id++) {
+            int mask = wordSlots.length - 1;
+            int slot = mix(words[id].hashCode()) & mask;
+            while (wordSlots[slot] != 0) slot = (slot + 1) & mask;
+            wordSlots[slot] = id + 1;
+        }
+
+        // Targets are never the root, so 0 marks an empty slot
+        edgeKeys = new long[tableSize(edges)];
+        edgeTargets = new int[edgeKeys.length];
+        regionOf = new int[trie.size()];
+        Arrays.fill(regionOf, -1);
+        for (int state = 0; state < trie.size(); state++) {
+            for (Map.Entry<String, Integer> e : trie.get(state).entrySet()) {
+                long key = (long) state * words.length + wordIds.get(e.getKey());
+                int mask = edgeKeys.length - 1;
+                int slot = mix(Long.hashCode(key)) & mask;
+                while (edgeTargets[slot] != 0) slot = (slot + 1) & mask;
+                edgeKeys[slot] = key;
+                edgeTargets[slot] = e.getValue();
+            }
+            String code = termRegion.get(state);
+            if (code != null) regionOf[state] = regionIds.computeIfAbsent(code, c -> regionIds.size());
+        }
+        regions = new String[regionIds.size()];
+        regionIds.forEach((code, id) -> regions[id] = code);
+
+        trie.clear();
+        termRegion.clear();
+    }
+
+    // Power of two with load factor <= 1/2
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(2, entries) * 4 - 1);
+    }
+}
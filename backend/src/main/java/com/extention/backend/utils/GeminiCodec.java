@@ -0,0 +1,177 @@
+package com.extention.backend.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Streaming codec for generateContent: the request is written token by token straight to the connection
+ * (no escaped copies of the prompt), and responses are pulled with a JsonParser that keeps only the text of
+ * candidates[0] and usageMetadata, skipping everything else without building a tree.
+ */
+public final class GeminiCodec {
+
+    // The request stream belongs to the HTTP client; the generator must not close it
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    public record Usage(int promptTokens, int candidateTokens, int totalTokens) {
+        public static final Usage NONE = new Usage(0, 0, 0);
+    }
+
+    public record Completion(String text, Usage usage) {}
+
+    private GeminiCodec() {}
+
+    // responseSchema is written raw; it comes from our own constants, not from users
+    public static void writeRequest(OutputStream out, String prompt, String responseSchema) throws IOException {
+        try (JsonGenerator gen = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("contents");
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("parts");
+            gen.writeStartObject();
+            gen.writeStringField("text", prompt);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+            if (responseSchema != null) {
+                gen.writeObjectFieldStart("generationConfig");
+                gen.writeStringField("responseMimeType", "application/json");
+                gen.writeFieldName("responseSchema");
+                gen.writeRawValue(responseSchema);
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static Completion readResponse(InputStream in) throws IOException {
+        try (JsonParser p = JSON.createParser(in)) {
+            return read(p);
+        }
+    }
+
+    // One SSE "data:" payload of streamGenerateContent (a partial GenerateContentResponse)
+    public static Completion readChunk(String data) throws IOException {
+        try (JsonParser p = JSON.createParser(data)) {
+            return read(p);
+        }
+    }
+
+    // streamGenerateContent with alt=sse: each "data:" line is a partial GenerateContentResponse whose text is
+    // relayed as it arrives. An exception from onChunk stops the read and propagates.
+    public static Completion readStream(InputStream in, Consumer<String> onChunk) throws IOException {
+        StringBuilder text = new StringBuilder();
+        Usage usage = Usage.NONE;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) continue;
+            Completion chunk = readChunk(line.substring(5).trim());
+            // Usage is cumulative; the last event carries the totals
+            if (chunk.usage().totalTokens() > 0) usage = chunk.usage();
+            if (chunk.text().isEmpty()) continue;
+            text.append(chunk.text());
+            onChunk.accept(chunk.text());
+        }
+        return new Completion(text.toString(), usage);
+    }
+
+    private static Completion read(JsonParser p) throws IOException {
+        StringBuilder text = new StringBuilder();
+        Usage usage = Usage.NONE;
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                boolean first = true;
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    if (first && p.currentToken() == JsonToken.START_OBJECT) {
+                        readCandidate(p, text);
+                        first = false;
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else if ("usageMetadata".equals(field) && value == JsonToken.START_OBJECT) {
+                usage = readUsage(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new Completion(text.toString(), usage);
+    }
+
+    // candidate.content.parts[*].text
+    private static void readCandidate(JsonParser p, StringBuilder text) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("content".equals(field) && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String contentField = p.currentName();
+                    JsonToken contentValue = p.nextToken();
+                    if ("parts".equals(contentField) && contentValue == JsonToken.START_ARRAY) {
+                        readParts(p, text);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void readParts(JsonParser p, StringBuilder text) throws IOException {
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    // Copy straight from the parser's buffer; getText() would add a String per part
+                    text.ensureCapacity(text.length() + p.getTextLength());
+                    text.append(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static Usage readUsage(JsonParser p) throws IOException {
+        int prompt = 0, candidates = 0, total = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "promptTokenCount" -> prompt = p.getValueAsInt();
+                case "candidatesTokenCount" -> candidates = p.getValueAsInt();
+                case "totalTokenCount" -> total = p.getValueAsInt();
+                default -> p.skipChildren();
+            }
+        }
+        return new Usage(prompt, candidates, total);
+    }
+}
@@ -0,0 +1,74 @@
+package com.extention.backend.utils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pulls the JSON object out of model output that may wrap it in prose or code fences.
+ * The scan is a single pass that tracks string literals and escapes, so braces inside strings don't count,
+ * and only balanced candidates are handed to Jackson (decoded straight into the target type).
+ */
+public final class JsonExtractor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // Prose like "use {x} here" before the real object costs one failed parse each; cap the retries
+    private static final int MAX_CANDIDATES = 8;
+
+    private JsonExtractor() {}
+
+    public static <T> T read(String text, Class<T> type) {
+        if (text != null) {
+            int from = 0;
+            for (int i = 0; i < MAX_CANDIDATES; i++) {
+                int[] span = nextObject(text, from);
+                if (span == null) break;
+                try {
+                    return MAPPER.readValue(text.substring(span[0], span[1]), type);
+                } catch (Exception notThisOne) {
+                    from = span[0] + 1;
+                }
+            }
+        }
+        throw new RuntimeException("AI did not return valid JSON");
+    }
+
+    public static JsonNode readTree(String text) {
+        return read(text, JsonNode.class);
+    }
+
+    // [start, end) of the first balanced {...} at or after from, or null
+    static int[] nextObject(String text, int from) {
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (depth == 0) {
+                if (c == '{') {
+                    start = i;
+                    depth = 1;
+                }
+                continue;
+            }
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> depth++;
+                case '}' -> {
+                    if (--depth == 0) return new int[]{start, i + 1};
+                }
+                default -> {}
+            }
+        }
+        return null;
+    }
+}
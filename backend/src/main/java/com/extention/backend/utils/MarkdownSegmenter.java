@@ -0,0 +1,85 @@
+package com.extention.backend.utils;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cuts Markdown text into translatable sentences and the literal pieces around them
+ * (fenced/indented code, blank lines, heading/list/quote markers, whitespace).
+ * Concatenating all segment texts gives back the input exactly, so translations can be substituted in place.
+ */
+public final class MarkdownSegmenter {
+
+    public record Segment(String text, boolean translatable) {}
+
+    private static final Pattern LINE = Pattern.compile("[^\\n]*\\n|[^\\n]+$");
+    private static final Pattern BLOCK_PREFIX = Pattern.compile("^(\\s*(?:#{1,6}\\s+|>\\s?|[-*+]\\s+|\\d{1,3}[.)]\\s+|\\[[ xX]]\\s+)*)");
+    private static final Pattern INDENTED_CODE = Pattern.compile("^(?: {4}|\\t)(?!\\s*(?:[-*+]|\\d{1,3}[.)])\\s)");
+
+    private MarkdownSegmenter() {}
+
+    public static List<Segment> segment(String text) {
+        List<Segment> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+
+        String fence = null;
+        Matcher lines = LINE.matcher(text);
+        while (lines.find()) {
+            String line = lines.group();
+            String body = line.strip();
+
+            if (fence != null) {
+                out.add(new Segment(line, false));
+                if (body.startsWith(fence)) fence = null;
+                continue;
+            }
+            if (body.startsWith("```") || body.startsWith("~~~")) {
+                fence = body.substring(0, 3);
+                out.add(new Segment(line, false));
+                continue;
+            }
+            if (body.isEmpty() || INDENTED_CODE.matcher(line).find() || !hasLetter(body)) {
+                out.add(new Segment(line, false));
+                continue;
+            }
+
+            Matcher prefix = BLOCK_PREFIX.matcher(line);
+            int start = prefix.find() ? prefix.end() : 0;
+            if (start > 0) out.add(new Segment(line.substring(0, start), false));
+            sentences(line.substring(start), out);
+        }
+        return out;
+    }
+
+    // Sentence pieces with their surrounding whitespace split off as literals
+    private static void sentences(String content, List<Segment> out) {
+        BreakIterator it = BreakIterator.getSentenceInstance(Locale.ROOT);
+        it.setText(content);
+        int start = it.first();
+        for (int end = it.next(); end != BreakIterator.DONE; start = end, end = it.next()) {
+            String piece = content.substring(start, end);
+            int lead = 0;
+            while (lead < piece.length() && Character.isWhitespace(piece.charAt(lead))) lead++;
+            int trail = piece.length();
+            while (trail > lead && Character.isWhitespace(piece.charAt(trail - 1))) trail--;
+
+            if (lead > 0) out.add(new Segment(piece.substring(0, lead), false));
+            if (trail > lead) {
+                String core = piece.substring(lead, trail);
+                out.add(new Segment(core, hasLetter(core)));
+            }
+            if (trail < piece.length()) out.add(new Segment(piece.substring(trail), false));
+        }
+    }
+
+    private static boolean hasLetter(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isLetter(s.charAt(i))) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package com.extention.backend.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Builds the Custom Search query plan for a selected claim.
+ * The selection is tokenized once; years, proper nouns and hint words are picked up in that same pass,
+ * and the region comes from the gazetteer automaton fed the same tokens (no per-call regex work).
+ */
+@Component
+public class QueryPlanner {
+
+    public record Plan(List<String> attempts, String lang, String region) {}
+
+    // Checked in this order: the first one present becomes the core term
+    private static final List<String> HINTS = List.of("born", "captain", "cricketer");
+    private static final int MAX_PLACES = 5;
+    private static final int MAX_FIRST_SENTENCE = 400;
+
+    private final Gazetteer gazetteer;
+
+    public QueryPlanner(@Value("${application.search.gazetteer:classpath:gazetteer/regions.tsv}") Resource gazetteer) {
+        try (InputStream in = gazetteer.getInputStream()) {
+            this.gazetteer = Gazetteer.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load gazetteer " + gazetteer, e);
+        }
+    }
+
+    public Plan plan(String text, String subject, String host) {
+        Tokens t = tokenize(text, subject);
+        String first = firstSentence(text);
+        String site = excludeSite(host);
+
+        List<String> attempts = new ArrayList<>(6);
+        // 1) Entity-focused with site exclusion, 2) same without
+        attempts.add(join(subject, t.core, t.years, t.places, site));
+        attempts.add(join(subject, t.core, t.years, t.places));
+        // 3) Biography fallback
+        attempts.add(join(subject, "biography", site));
+        attempts.add(join(subject, "biography"));
+        // 4) First sentence with subject
+        attempts.add(join(subject, first, site));
+        attempts.add(join(subject, first));
+
+        // Deduplicate empty or identical attempts
+        LinkedHashSet<String> uniq = new LinkedHashSet<>();
+        for (String q : attempts) {
+            if (!q.isEmpty()) uniq.add(q);
+        }
+        // Best-effort language: CSE results are English-first for our users
+        return new Plan(new ArrayList<>(uniq), "en", t.region);
+    }
+
+    private static final class Tokens {
+        String core = "";
+        String years = "";
+        String places = "";
+        String region = "";
+    }
+
+    // One pass over the text: word tokens are runs of letters/digits. Tokens are compared in place;
+    // only the few that end up in the query are copied out of the text.
+    private Tokens tokenize(String text, String subject) {
+        Tokens out = new Tokens();
+        if (!StringUtils.hasText(text)) return out;
+
+        String subj = subject == null ? "" : subject;
+        Gazetteer.Tally regions = gazetteer.tally();
+        List<String> years = new ArrayList<>();
+        List<String> places = new ArrayList<>();
+        int hint = HINTS.size();
+
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            boolean digits = true;
+            boolean asciiLetters = true;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') digits = false;
+                if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) asciiLetters = false;
+                i++;
+            }
+            int len = i - start;
+            if (len == 0) break;
+
+            regions.add(text, start, i);
+
+            // WHEN: years 1800..2099
+            if (digits && len == 4 && (text.startsWith("18", start) || text.startsWith("19", start) || text.startsWith("20", start))) {
+                addOnce(years, text, start, len);
+                continue;
+            }
+            // WHERE: capitalized words that aren't part of the subject
+            if (asciiLetters && len > 1 && Character.isUpperCase(text.charAt(start))
+                    && places.size() < MAX_PLACES && !inSubject(subj, text, start, len)) {
+                addOnce(places, text, start, len);
+            }
+            // CORE: highest-priority hint word present
+            for (int h = 0; h < hint; h++) {
+                String word = HINTS.get(h);
+                if (word.length() == len && text.regionMatches(true, start, word, 0, len)) {
+                    hint = h;
+                    break;
+                }
+            }
+        }
+
+        out.years = String.join(" ", years);
+        out.places = String.join(" ", places);
+        out.core = hint < HINTS.size() ? HINTS.get(hint) : "";
+        out.region = regions.bestRegion();
+        return out;
+    }
+
+    private static void addOnce(List<String> list, String text, int start, int len) {
+        for (String s : list) {
+            if (s.length() == len && text.startsWith(s, start)) return;
+        }
+        list.add(text.substring(start, start + len));
+    }
+
+    private static boolean inSubject(String subject, String text, int start, int len) {
+        for (int k = 0; k + len <= subject.length(); k++) {
+            if (subject.regionMatches(true, k, text, start, len)) return true;
+        }
+        return false;
+    }
+
+    // First sentence of the stripped text, found by index so a long selection isn't copied first
+    private static String firstSentence(String text) {
+        if (!StringUtils.hasText(text)) return "";
+        int begin = 0;
+        int end = text.length();
+        while (Character.isWhitespace(text.charAt(begin))) begin++;
+        while (Character.isWhitespace(text.charAt(end - 1))) end--;
+        int dot = text.indexOf('.', begin);
+        if (dot >= 0 && dot - begin < MAX_FIRST_SENTENCE) return text.substring(begin, dot + 1);
+        return text.substring(begin, Math.min(end, begin + MAX_FIRST_SENTENCE));
+    }
+
+    private static String excludeSite(String host) {
+        return StringUtils.hasText(host) ? ("-site:" + host) : "";
+    }
+
+    private static String join(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String p : parts) {
+            if (!StringUtils.hasText(p)) continue;
+            if (!sb.isEmpty()) sb.append(' ');
+            sb.append(p.strip());
+        }
+        return sb.toString();
+    }
+}
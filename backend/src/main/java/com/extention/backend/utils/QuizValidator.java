@@ -0,0 +1,74 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.QuizPayload;
+import com.extention.backend.response.QuizPayload.Question;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Local check of generated quizzes against what grading relies on: QUESTIONS distinct questions, OPTIONS distinct
+ * options each, correctIndex inside them. What can be repaired is (blank/duplicate/extra options trimmed while
+ * keeping the correct one, duplicate questions dropped); a question with no usable text, too few options or a
+ * correctIndex outside its own options is discarded, and the caller asks the model for that many replacements.
+ */
+public final class QuizValidator {
+
+    public static final int QUESTIONS = 5;
+    public static final int OPTIONS = 4;
+
+    private QuizValidator() {}
+
+    /** keep followed by the usable questions of payload that don't repeat one already present, capped at QUESTIONS. */
+    public static List<Question> merge(List<Question> keep, QuizPayload payload) {
+        List<Question> out = new ArrayList<>(QUESTIONS);
+        Set<String> seen = new HashSet<>();
+        for (Question q : keep) {
+            if (out.size() < QUESTIONS && seen.add(key(q.question()))) out.add(q);
+        }
+        if (payload == null || payload.questions() == null) return out;
+        for (Question q : payload.questions()) {
+            if (out.size() >= QUESTIONS) break;
+            Question fixed = repair(q);
+            if (fixed != null && seen.add(key(fixed.question()))) out.add(fixed);
+        }
+        return out;
+    }
+
+    // Null when the question can't be trusted for grading
+    static Question repair(Question q) {
+        if (q == null || q.question() == null || q.question().isBlank() || q.options() == null) return null;
+        int correct = q.correctIndex();
+        if (correct < 0 || correct >= q.options().size()) return null;
+        String answer = q.options().get(correct) == null ? "" : q.options().get(correct).strip();
+        if (answer.isEmpty()) return null;
+
+        // Distinct non-blank options in order, always keeping the correct one
+        List<String> options = new ArrayList<>(OPTIONS);
+        Set<String> seen = new HashSet<>();
+        seen.add(key(answer));
+        boolean answerPlaced = false;
+        for (int i = 0; i < q.options().size(); i++) {
+            String o = q.options().get(i) == null ? "" : q.options().get(i).strip();
+            if (i == correct) {
+                options.add(answer);
+                answerPlaced = true;
+                continue;
+            }
+            if (o.isEmpty() || !seen.add(key(o))) continue;
+            // Until the answer is in, one slot stays reserved for it
+            if (options.size() < (answerPlaced ? OPTIONS : OPTIONS - 1)) options.add(o);
+        }
+        if (options.size() < OPTIONS) return null;
+
+        return new Question(q.question().strip(), List.copyOf(options), options.indexOf(answer),
+                q.explanation() == null ? "" : q.explanation().strip());
+    }
+
+    private static String key(String s) {
+        return s == null ? "" : s.strip().toLowerCase(Locale.ROOT);
+    }
+}
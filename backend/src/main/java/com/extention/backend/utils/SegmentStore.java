@@ -0,0 +1,366 @@
+package com.extention.backend.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key/value log on local disk in fixed-size, memory-mapped segment files.
+ * Records are [magic][crc][keyLen][valueLen][key][value]; a rewrite appends a new record and the old one becomes
+ * garbage. The index (key -> segment/offset) lives in memory in LRU order; it is written to an index file on close
+ * and read back on startup, or rebuilt by scanning the segments when that file is missing. Least recently used keys are dropped once live data passes 3/4 of the disk budget, and when the
+ * files exceed the budget the sparsest sealed segments are compacted forward and deleted.
+ * remove() and eviction only touch the in-memory index, so after a crash (no index file) the rescan can bring back
+ * entries that were removed or evicted while their records were still on disk; callers must treat values as a cache
+ * that may be stale, as the page cache does with its fetchedAt check.
+ */
+public final class SegmentStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x50475331; // "PGS1"
+    private static final int HEADER = 16;
+    private static final String SUFFIX = ".seg";
+    private static final String INDEX = "index";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final long liveLimit;
+
+    // All state below is guarded by this
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+    private Segment active;
+    private long liveBytes;
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buf;
+        int writePos;
+        long live;
+
+        Segment(int id, Path path, FileChannel channel, MappedByteBuffer buf) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buf = buf;
+        }
+    }
+
+    // Mutable so compaction can move a record without touching its LRU position
+    private static final class Entry {
+        Segment segment;
+        int offset;
+        final int length;
+
+        Entry(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public SegmentStore(Path dir, int segmentBytes, long maxBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        // Live data stays under 3/4 of the budget so garbage has room before compaction kicks in
+        this.liveLimit = maxBytes / 4 * 3;
+        try {
+            Files.createDirectories(dir);
+            List<Path> files;
+            try (Stream<Path> s = Files.list(dir)) {
+                files = s.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList();
+            }
+            for (Path p : files) {
+                Segment seg = open(segmentId(p), p);
+                segments.put(seg.id, seg);
+            }
+            if (!loadIndex()) {
+                for (Segment seg : segments.values()) scan(seg);
+            }
+            active = segments.isEmpty() ? roll() : segments.lastEntry().getValue();
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segment store " + dir, e);
+        }
+    }
+
+    public synchronized Optional<byte[]> get(String key) {
+        Entry e = index.get(key);
+        if (e == null) return Optional.empty();
+        ByteBuffer view = e.segment.buf.duplicate();
+        view.position(e.offset + 8);
+        int keyLen = view.getInt();
+        int valueLen = view.getInt();
+        view.position(view.position() + keyLen);
+        byte[] value = new byte[valueLen];
+        view.get(value);
+        return Optional.of(value);
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER + k.length + value.length;
+        if (length > segmentBytes) return;
+
+        if (active.writePos + length > segmentBytes) active = roll();
+        int offset = append(active, k, value);
+
+        Entry old = index.put(key, new Entry(active, offset, length));
+        if (old != null) forget(old);
+        active.live += length;
+        liveBytes += length;
+        evict();
+    }
+
+    public synchronized void remove(String key) {
+        Entry old = index.remove(key);
+        if (old != null) {
+            forget(old);
+            reclaim();
+        }
+    }
+
+    public synchronized long diskBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            saveIndex();
+        } catch (IOException ignored) {
+            // Next start falls back to scanning the segments
+        }
+        for (Segment seg : segments.values()) {
+            try {
+                seg.buf.force();
+                seg.channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    // LRU keys go first; then garbage-heavy sealed segments are compacted so the files actually shrink
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (liveBytes > liveLimit && it.hasNext()) {
+            Entry e = it.next().getValue();
+            it.remove();
+            forget(e);
+        }
+        reclaim();
+    }
+
+    private void reclaim() {
+        List<Segment> sealed = new ArrayList<>(segments.values());
+        sealed.remove(active);
+        for (Segment seg : sealed) {
+            if (seg.live == 0) {
+                drop(seg);
+            }
+        }
+        // Over budget means sealed segments average under 3/4 live, so the sparsest one is always worth copying forward
+        for (int attempts = segments.size(); attempts > 0 && diskBytes() > maxBytes; attempts--) {
+            Segment victim = null;
+            for (Segment seg : segments.values()) {
+                if (seg != active && (victim == null || seg.live < victim.live)) victim = seg;
+            }
+            if (victim == null || victim.live > segmentBytes / 4 * 3) return;
+            compact(victim);
+        }
+    }
+
+    private void compact(Segment victim) {
+        for (Map.Entry<String, Entry> me : index.entrySet()) {
+            Entry e = me.getValue();
+            if (e.segment != victim) continue;
+            if (active.writePos + e.length > segmentBytes) active = roll();
+
+            ByteBuffer view = victim.buf.duplicate();
+            view.position(e.offset + 8);
+            byte[] k = new byte[view.getInt()];
+            byte[] v = new byte[view.getInt()];
+            view.get(k).get(v);
+
+            e.offset = append(active, k, v);
+            e.segment = active;
+            active.live += e.length;
+        }
+        drop(victim);
+    }
+
+    private void forget(Entry e) {
+        e.segment.live -= e.length;
+        liveBytes -= e.length;
+    }
+
+    private void drop(Segment seg) {
+        segments.remove(seg.id);
+        try {
+            seg.channel.close();
+            Files.deleteIfExists(seg.path);
+        } catch (IOException ignored) {}
+    }
+
+    // Magic is written last so a torn write at the tail reads as end-of-segment
+    private static int append(Segment seg, byte[] key, byte[] value) {
+        int offset = seg.writePos;
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+
+        ByteBuffer view = seg.buf.duplicate();
+        view.position(offset + 4);
+        view.putInt((int) crc.getValue()).putInt(key.length).putInt(value.length).put(key).put(value);
+        seg.buf.putInt(offset, MAGIC);
+        seg.writePos = view.position();
+        return offset;
+    }
+
+    // Index file: [magic][segments: id, writePos][entries in LRU order: key, segment, offset, length]
+    private void saveIndex() throws IOException {
+        Path tmp = dir.resolve(INDEX + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(segments.size());
+            for (Segment seg : segments.values()) {
+                out.writeInt(seg.id);
+                out.writeInt(seg.writePos);
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<String, Entry> me : index.entrySet()) {
+                Entry e = me.getValue();
+                out.writeUTF(me.getKey());
+                out.writeInt(e.segment.id);
+                out.writeInt(e.offset);
+                out.writeInt(e.length);
+            }
+        }
+        Files.move(tmp, dir.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Consumed on load: after a crash the stale file must not be trusted, so the next start scans instead
+    private boolean loadIndex() {
+        Path file = dir.resolve(INDEX);
+        if (!Files.exists(file)) return false;
+        boolean loaded = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            loaded = readIndex(in);
+        } catch (IOException ignored) {
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {}
+        if (!loaded) {
+            index.clear();
+            liveBytes = 0;
+            for (Segment seg : segments.values()) seg.live = 0;
+        }
+        return loaded;
+    }
+
+    private boolean readIndex(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) return false;
+        int segmentCount = in.readInt();
+        if (segmentCount != segments.size()) return false;
+        for (int i = 0; i < segmentCount; i++) {
+            Segment seg = segments.get(in.readInt());
+            if (seg == null) return false;
+            seg.writePos = in.readInt();
+        }
+        int entries = in.readInt();
+        for (int i = 0; i < entries; i++) {
+            String key = in.readUTF();
+            Segment seg = segments.get(in.readInt());
+            int offset = in.readInt();
+            int length = in.readInt();
+            if (seg == null) return false;
+            index.put(key, new Entry(seg, offset, length));
+            seg.live += length;
+            liveBytes += length;
+        }
+        return true;
+    }
+
+    private void scan(Segment seg) {
+        ByteBuffer view = seg.buf.duplicate();
+        int pos = 0;
+        while (pos + HEADER <= segmentBytes && view.getInt(pos) == MAGIC) {
+            int crcValue = view.getInt(pos + 4);
+            int keyLen = view.getInt(pos + 8);
+            int valueLen = view.getInt(pos + 12);
+            // Garbage lengths must not overflow the sum or size the arrays below
+            int maxLen = segmentBytes - HEADER;
+            if (keyLen < 0 || valueLen < 0 || keyLen > maxLen || valueLen > maxLen) break;
+            long total = (long) HEADER + keyLen + valueLen;
+            if (pos + total > segmentBytes) break;
+            int length = (int) total;
+
+            byte[] k = new byte[keyLen];
+            byte[] v = new byte[valueLen];
+            view.position(pos + HEADER);
+            view.get(k).get(v);
+            CRC32 crc = new CRC32();
+            crc.update(k);
+            crc.update(v);
+            if ((int) crc.getValue() != crcValue) break;
+
+            Entry old = index.put(new String(k, StandardCharsets.UTF_8), new Entry(seg, pos, length));
+            if (old != null) forget(old);
+            seg.live += length;
+            liveBytes += length;
+            pos += length;
+        }
+        seg.writePos = pos;
+    }
+
+    private Segment roll() {
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = dir.resolve(String.format("%08d%s", id, SUFFIX));
+        try {
+            Segment seg = open(id, path);
+            segments.put(id, seg);
+            return seg;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment " + path, e);
+        }
+    }
+
+    private Segment open(int id, Path path) throws IOException {
+        FileChannel ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(id, path, ch, buf);
+    }
+
+    private static int segmentId(Path p) {
+        String name = p.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.extention.backend.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the upstream call,
+ * everyone arriving while it is outstanding waits on the same future and gets its result or error.
+ * Keys are namespaced per instance, so one instance should only ever produce one value type per key.
+ */
+public final class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter waiters;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("upstream.singleflight.calls")
+                .tag("flight", name)
+                .tag("role", "leader")
+                .register(meterRegistry);
+        this.waiters = Counter.builder("upstream.singleflight.calls")
+                .tag("flight", name)
+                .tag("role", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("upstream.singleflight.inflight", inFlight, Map::size)
+                .tag("flight", name)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Supplier<V> call) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            waiters.increment();
+            return (V) await(existing);
+        }
+
+        leaders.increment();
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Surface the leader's exception unchanged so callers handle it the same way
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
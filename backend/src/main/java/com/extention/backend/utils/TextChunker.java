@@ -0,0 +1,82 @@
+package com.extention.backend.utils;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits long text into chunks under a token budget (~4 chars per token), on paragraph boundaries first,
+ * then sentences, and only hard-cuts a single oversized sentence.
+ * Boundaries are content-defined: once a chunk is half full it closes after a paragraph whose hash hits an anchor,
+ * so an edit in one paragraph moves at most the neighbouring boundaries and the other chunks stay byte-identical
+ * (and keep hitting the per-chunk cache).
+ */
+public final class TextChunker {
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final int ANCHOR_MODULUS = 4;
+
+    private TextChunker() {}
+
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : text.length() / 4 + 1;
+    }
+
+    public static List<String> split(String text, int maxTokens) {
+        int maxChars = Math.max(200, maxTokens * 4);
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) return chunks;
+
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : PARAGRAPH_BREAK.split(text.strip())) {
+            paragraph = paragraph.strip();
+            if (paragraph.isEmpty()) continue;
+
+            if (paragraph.length() > maxChars) {
+                flush(current, chunks);
+                splitSentences(paragraph, maxChars, chunks);
+                continue;
+            }
+            if (current.length() + paragraph.length() + 2 > maxChars) {
+                flush(current, chunks);
+            }
+            if (!current.isEmpty()) current.append("\n\n");
+            current.append(paragraph);
+
+            if (current.length() >= maxChars / 2 && Math.floorMod(paragraph.hashCode(), ANCHOR_MODULUS) == 0) {
+                flush(current, chunks);
+            }
+        }
+        flush(current, chunks);
+        return chunks;
+    }
+
+    private static void splitSentences(String paragraph, int maxChars, List<String> chunks) {
+        BreakIterator it = BreakIterator.getSentenceInstance(Locale.ROOT);
+        it.setText(paragraph);
+        StringBuilder current = new StringBuilder();
+        int start = it.first();
+        for (int end = it.next(); end != BreakIterator.DONE; start = end, end = it.next()) {
+            String sentence = paragraph.substring(start, end);
+            if (current.length() + sentence.length() > maxChars) {
+                flush(current, chunks);
+            }
+            if (sentence.length() > maxChars) {
+                for (int i = 0; i < sentence.length(); i += maxChars) {
+                    chunks.add(sentence.substring(i, Math.min(sentence.length(), i + maxChars)).strip());
+                }
+                continue;
+            }
+            current.append(sentence);
+        }
+        flush(current, chunks);
+    }
+
+    private static void flush(StringBuilder current, List<String> chunks) {
+        String chunk = current.toString().strip();
+        if (!chunk.isEmpty()) chunks.add(chunk);
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.extention.backend.utils;
+
+/**
+ * Continuously refilling per-minute bucket. Not thread-safe on its own; UpstreamGovernor
+ * checks and takes from its buckets under one lock so RPM and TPM are consumed together.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double available;
+    private long lastRefill;
+
+    TokenBucket(long perMinute, long now) {
+        this.capacity = perMinute;
+        this.refillPerNano = perMinute / 60_000_000_000d;
+        this.available = perMinute;
+        this.lastRefill = now;
+    }
+
+    boolean unlimited() {
+        return capacity <= 0;
+    }
+
+    // Nanoseconds until `permits` can be taken; 0 when they are available now
+    long nanosUntil(double permits, long now) {
+        if (unlimited()) return 0;
+        refill(now);
+        double need = Math.min(permits, capacity) - available;
+        return need <= 0 ? 0 : (long) Math.ceil(need / refillPerNano);
+    }
+
+    void take(double permits, long now) {
+        if (unlimited()) return;
+        refill(now);
+        available -= Math.min(permits, capacity);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
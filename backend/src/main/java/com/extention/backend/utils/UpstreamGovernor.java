@@ -0,0 +1,272 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.config.GovernorProperties;
+import com.extention.backend.exception.UpstreamException;
+import com.extention.backend.exception.UpstreamThrottledException;
+import com.extention.backend.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Quota governor for one upstream:
+ * - requests-per-minute and tokens-per-minute buckets, waited on by at most maxWaiters callers up to maxWait;
+ * - jittered exponential retry on 429/5xx/IO errors that honors Retry-After (header or Gemini retryDelay);
+ * - a consecutive-failure circuit breaker that fails fast while the upstream is down.
+ * Rejections surface as UpstreamThrottledException (429) or UpstreamUnavailableException (503) with a retry hint.
+ */
+public final class UpstreamGovernor {
+
+    private static final Pattern RETRY_DELAY = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+)(?:\\.\\d+)?s\"");
+    private static final long MAX_PARK_NANOS = 250_000_000L;
+
+    private enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String name;
+    private final GovernorProperties.Limits limits;
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final Semaphore waiters;
+
+    // Guarded by this
+    private long pausedUntil;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    private final Timer waitTimer;
+    private final Counter retries;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedDeadline;
+    private final Counter rejectedCircuitOpen;
+
+    public UpstreamGovernor(String name, GovernorProperties.Limits limits, MeterRegistry meterRegistry) {
+        long now = System.nanoTime();
+        this.name = name;
+        this.limits = limits;
+        this.requests = new TokenBucket(limits.requestsPerMinute(), now);
+        this.tokens = new TokenBucket(limits.tokensPerMinute(), now);
+        this.waiters = new Semaphore(limits.maxWaiters());
+        this.pausedUntil = now;
+
+        this.waitTimer = Timer.builder("upstream.governor.wait").tag("upstream", name).register(meterRegistry);
+        this.retries = Counter.builder("upstream.governor.retries").tag("upstream", name).register(meterRegistry);
+        this.rejectedQueueFull = rejected(meterRegistry, "queue_full");
+        this.rejectedDeadline = rejected(meterRegistry, "deadline");
+        this.rejectedCircuitOpen = rejected(meterRegistry, "circuit_open");
+        Gauge.builder("upstream.governor.circuit.state", this, g -> g.stateOrdinal())
+                .tag("upstream", name)
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs call under the quota. estimatedTokens counts against the TPM bucket (ignored when unlimited).
+     * Pass retryable = false for calls that may already have produced side effects (e.g. relayed stream chunks).
+     */
+    public <T> T call(long estimatedTokens, boolean retryable, Supplier<T> call) {
+        long deadline = System.nanoTime() + limits.maxWait().toNanos();
+        int maxAttempts = retryable ? Math.max(1, limits.maxAttempts()) : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            enterCircuit();
+            try {
+                acquire(estimatedTokens, deadline);
+            } catch (RuntimeException e) {
+                releaseTrial();
+                throw e;
+            }
+            try {
+                T out = call.get();
+                onReachable();
+                return out;
+            } catch (RuntimeException e) {
+                Failure failure = classify(e);
+                if (failure == null) {
+                    // Not a quota/availability problem (e.g. 400): the upstream answered, let it through
+                    onReachable();
+                    throw e;
+                }
+                if (failure.throttled()) {
+                    onReachable();
+                    pauseFor(failure.retryAfter());
+                } else {
+                    onFailure();
+                }
+
+                Duration backoff = backoff(attempt, failure.retryAfter());
+                if (attempt >= maxAttempts || System.nanoTime() + backoff.toNanos() > deadline) {
+                    throw failure.throttled()
+                            ? new UpstreamThrottledException(name, backoff, e)
+                            : new UpstreamUnavailableException(name, backoff, e);
+                }
+                retries.increment();
+                sleep(backoff);
+            }
+        }
+    }
+
+    // ---------- quota ----------
+
+    private void acquire(long estimatedTokens, long deadline) {
+        if (!waiters.tryAcquire()) {
+            rejectedQueueFull.increment();
+            throw new UpstreamThrottledException(name, Duration.ofSeconds(1), null);
+        }
+        long started = System.nanoTime();
+        try {
+            while (true) {
+                long wait;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    wait = Math.max(0, pausedUntil - now);
+                    wait = Math.max(wait, requests.nanosUntil(1, now));
+                    wait = Math.max(wait, tokens.nanosUntil(estimatedTokens, now));
+                    if (wait == 0) {
+                        requests.take(1, now);
+                        tokens.take(estimatedTokens, now);
+                        return;
+                    }
+                }
+                if (System.nanoTime() + wait > deadline) {
+                    rejectedDeadline.increment();
+                    throw new UpstreamThrottledException(name, Duration.ofNanos(wait), null);
+                }
+                LockSupport.parkNanos(Math.min(wait, MAX_PARK_NANOS));
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new UpstreamUnavailableException(name, Duration.ofSeconds(1), null);
+                }
+            }
+        } finally {
+            waitTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            waiters.release();
+        }
+    }
+
+    // An upstream 429 means everyone should back off, not just the caller that saw it
+    private synchronized void pauseFor(Duration retryAfter) {
+        if (retryAfter == null) return;
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + retryAfter.toNanos());
+    }
+
+    // ---------- circuit breaker ----------
+
+    private synchronized void enterCircuit() {
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now < openUntil) {
+                rejectedCircuitOpen.increment();
+                throw new UpstreamUnavailableException(name, Duration.ofNanos(openUntil - now), null);
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedCircuitOpen.increment();
+                throw new UpstreamUnavailableException(name, Duration.ofSeconds(1), null);
+            }
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onReachable() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= limits.failureThreshold()) {
+            state = State.OPEN;
+            openUntil = System.nanoTime() + limits.openDuration().toNanos();
+        }
+        trialInFlight = false;
+    }
+
+    private synchronized int stateOrdinal() {
+        return state.ordinal();
+    }
+
+    // ---------- retry ----------
+
+    private record Failure(boolean throttled, Duration retryAfter) {}
+
+    private static Failure classify(RuntimeException e) {
+        if (e instanceof UpstreamException) return null;
+        if (e instanceof RestClientResponseException rre) {
+            int status = rre.getStatusCode().value();
+            if (status == 429) return new Failure(true, retryAfter(rre));
+            if (status == 500 || status == 502 || status == 503 || status == 504) {
+                return new Failure(false, retryAfter(rre));
+            }
+            return null;
+        }
+        if (e instanceof ResourceAccessException) return new Failure(false, null);
+        return null;
+    }
+
+    private static Duration retryAfter(RestClientResponseException e) {
+        HttpHeaders headers = e.getResponseHeaders();
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value != null && !value.isBlank()) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    Duration d = Duration.between(ZonedDateTime.now(),
+                            ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                    return d.isNegative() ? Duration.ZERO : d;
+                } catch (Exception ignored) {}
+            }
+        }
+        // Gemini reports the delay in the error body (google.rpc.RetryInfo)
+        Matcher m = RETRY_DELAY.matcher(e.getResponseBodyAsString());
+        return m.find() ? Duration.ofSeconds(Long.parseLong(m.group(1))) : null;
+    }
+
+    // Exponential backoff with jitter in [half, full]; never shorter than the upstream's Retry-After
+    private Duration backoff(int attempt, Duration retryAfter) {
+        long base = limits.baseBackoff().toMillis() << Math.min(attempt - 1, 16);
+        long capped = Math.min(base, limits.maxBackoff().toMillis());
+        long jittered = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        long millis = retryAfter == null ? jittered : Math.max(jittered, retryAfter.toMillis());
+        return Duration.ofMillis(millis);
+    }
+
+    private void sleep(Duration d) {
+        try {
+            Thread.sleep(d.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamUnavailableException(name, d, e);
+        }
+    }
+
+    private Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("upstream.governor.rejected")
+                .tag("upstream", name)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.extention.backend.mapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Main-content selection over saved pages in src/test/resources/pages. Each fixture is a typical layout
+ * (semantic news article, div-soup blog, wiki, docs) with the usual chrome around the article.
+ */
+class ContentExtractorTest {
+
+    private static final int MAX_CHARS = 60_000;
+
+    private final ContentExtractor extractor =
+            new ContentExtractor(null, null, null, new SimpleMeterRegistry(), 2_097_152, 20_971_520, MAX_CHARS);
+
+    private static String page(String name) throws IOException {
+        try (InputStream in = ContentExtractorTest.class.getResourceAsStream("/pages/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private ContentExtractor.ExtractedContent extract(String html, int maxChars) throws IOException {
+        return extractor.parse(new StringReader(html), "https://example.com/page", maxChars);
+    }
+
+    private static void assertKeeps(String text, List<String> phrases) {
+        for (String p : phrases) assertTrue(text.contains(p), "missing article text: " + p);
+    }
+
+    private static void assertDrops(String text, List<String> phrases) {
+        for (String p : phrases) assertFalse(text.contains(p), "kept boilerplate: " + p);
+    }
+
+    @Test
+    void newsArticleDropsBannerNavRelatedAndComments() throws IOException {
+        ContentExtractor.ExtractedContent page = extract(page("news-article.html"), MAX_CHARS);
+
+        assertEquals("Monsoon reaches Kerala three days early, says IMD | The Daily Ledger", page.title());
+        assertTrue(page.text().startsWith("Monsoon reaches Kerala three days early, says IMD\n\n"));
+        assertKeeps(page.text(), List.of(
+                "The monsoon arrived over the Kerala coast on Thursday",
+                "\n\nReservoirs and rescue teams\n\n",
+                "positioned near the most flood-prone wards as a precaution."));
+        assertDrops(page.text(), List.of(
+                "We use cookies", "Entertainment", "Subscribe now", "Related stories", "Heatwave grips",
+                "Comments (6)", "Finally some relief", "Join the conversation", "morning briefing", "Copyright"));
+    }
+
+    @Test
+    void blogPostDropsSidebarWidgetsAndCommentList() throws IOException {
+        String text = extract(page("blog-post.html"), MAX_CHARS).text();
+
+        assertKeeps(text, List.of(
+                "An Easy Everyday Sourdough Loaf",
+                "Sourdough is mostly patience.",
+                "Stretch and fold four times",
+                "\n\nShaping and baking\n\n",
+                "until the crust is deeply browned."));
+        assertDrops(text, List.of(
+                "Recipes", "5 Comments", "This worked on my first try", "Hi, I'm Hannah", "Gluten free",
+                "Never miss a recipe", "Amazon Associate"));
+    }
+
+    @Test
+    void wikiPageDropsNavboxPanelAndFooter() throws IOException {
+        String text = extract(page("wiki-page.html"), MAX_CHARS).text();
+
+        assertKeeps(text, List.of(
+                "The Konkan Railway is a railway line along the western coast of India",
+                "Its longest tunnel, near Karbude",
+                "to reduce road traffic on the coastal highway."));
+        assertDrops(text, List.of(
+                "Zones of Indian Railways", "South East Central Railway", "Random article", "Printable version",
+                "Categories:", "Creative Commons", "Retrieved 2 March 2023"));
+    }
+
+    @Test
+    void docsPageKeepsCodeAndDropsTheTableOfContents() throws IOException {
+        String text = extract(page("docs-page.html"), MAX_CHARS).text();
+
+        assertKeeps(text, List.of(
+                "Connection pooling\n\nA connection pool keeps",
+                "datakit.pool.maximum-size=10\ndatakit.pool.connection-timeout=5s",
+                "when the pool is exhausted."));
+        assertDrops(text, List.of("Getting started", "Troubleshooting", "Previous: Configuration", "Was this page helpful"));
+    }
+
+    @Test
+    void corpusIsCutWellBelowTheWholeBodyText() throws IOException {
+        long body = 0;
+        long selected = 0;
+        for (String name : List.of("news-article.html", "blog-post.html", "wiki-page.html", "docs-page.html")) {
+            String html = page(name);
+            int whole = Jsoup.parse(html).body().text().length();
+            int kept = extract(html, MAX_CHARS).text().length();
+            assertTrue(kept < whole * 0.8, name + ": kept " + kept + " of " + whole);
+            body += whole;
+            selected += kept;
+        }
+        // What used to go into the prompt versus what goes now; real pages carry even more chrome
+        assertTrue(selected < body * 0.6, "kept " + selected + " of " + body);
+    }
+
+    @Test
+    void textIsCutAtTheBudget() throws IOException {
+        String text = extract(page("news-article.html"), 300).text();
+        assertEquals(300, text.length());
+        assertTrue(text.startsWith("Monsoon reaches Kerala three days early, says IMD"));
+    }
+
+    @Test
+    void pageWithoutAnArticleKeepsEveryBlock() throws IOException {
+        String html = """
+                <html><body>
+                <div class="tile"><p>Weather: 31 degrees</p></div>
+                <div class="tile"><p>Markets: Sensex up 0.4%</p></div>
+                <div class="tile"><p>Cricket: India 245/3</p></div>
+                </body></html>
+                """;
+        assertEquals("Weather: 31 degrees\n\nMarkets: Sensex up 0.4%\n\nCricket: India 245/3", extract(html, MAX_CHARS).text());
+    }
+}
@@ -0,0 +1,118 @@
+package com.extention.backend.repository;
+
+import com.extention.backend.entity.Quiz;
+import com.extention.backend.entity.QuizAttempt;
+import com.extention.backend.response.AttemptDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The recent-attempts listing over a user with thousands of attempts: one statement, no quiz entities loaded.
+ * Runs against the configured database; each test rolls back.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QuizAttemptRepositoryTest {
+
+    private static final String USER = "recent-attempts-user";
+    private static final int QUIZZES = 40;
+    private static final int ATTEMPTS = 3_000;
+
+    @Autowired
+    QuizAttemptRepository attemptRepository;
+
+    @Autowired
+    QuizRepository quizRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private final Map<Long, Integer> questionCounts = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        // questionsJson is deliberately not JSON: a listing that parsed it would fail
+        String bulky = "not json ".repeat(2_000);
+        List<Quiz> quizzes = new ArrayList<>();
+        for (int i = 0; i < QUIZZES; i++) {
+            quizzes.add(Quiz.builder()
+                    .username(USER)
+                    .articleTitle("Article " + i)
+                    .questionsJson(bulky)
+                    .questionsCount(3 + i % 5)
+                    .build());
+        }
+        quizRepository.saveAll(quizzes).forEach(q -> questionCounts.put(q.getId(), q.getQuestionsCount()));
+
+        List<QuizAttempt> attempts = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            attempts.add(QuizAttempt.builder()
+                    .quiz(quizzes.get(i % QUIZZES))
+                    .username(i % 10 == 0 ? "someone-else" : USER)
+                    .score(i % 4)
+                    .build());
+        }
+        attemptRepository.saveAll(attempts);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Statistics statistics() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+
+    @Test
+    void recentAttemptsAreOneStatementWithoutLoadingQuizzes() {
+        Statistics stats = statistics();
+
+        List<AttemptDto> recent = attemptRepository.findRecent(USER, Limit.of(20));
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityLoadCount());
+        assertEquals(20, recent.size());
+        for (int i = 0; i < recent.size(); i++) {
+            AttemptDto a = recent.get(i);
+            assertEquals(questionCounts.get(a.quizId()), a.questionsCount());
+            assertTrue(a.articleTitle().startsWith("Article "));
+            if (i > 0) assertFalse(a.createdAt().isAfter(recent.get(i - 1).createdAt()));
+        }
+    }
+
+    @Test
+    void entityListingItReplacedIssuesAQueryPerQuiz() {
+        Statistics stats = statistics();
+
+        List<QuizAttempt> attempts = entityManager.createQuery(
+                        "select a from QuizAttempt a where a.username = :username order by a.createdAt desc", QuizAttempt.class)
+                .setParameter("username", USER)
+                .setMaxResults(20)
+                .getResultList();
+        // The old endpoint: one query for the page, then a lazy load of each distinct quiz for its questionsJson
+        attempts.forEach(a -> assertNotNull(a.getQuiz().getQuestionsJson()));
+
+        long distinctQuizzes = attempts.stream().map(a -> a.getQuiz().getId()).distinct().count();
+        assertTrue(distinctQuizzes > 1);
+        assertEquals(1 + distinctQuizzes, stats.getPrepareStatementCount());
+        assertEquals(distinctQuizzes, stats.getEntityLoadCount() - attempts.size());
+    }
+}
@@ -0,0 +1,96 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.utils.GeminiCodec;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+import org.apache.hc.core5.http.io.EofSensorWatcher;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloudAiServiceImplTest {
+
+    // Each event is ~60 bytes, so a few hundred already span several reader buffers
+    private static byte[] sseBody(int events) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < events; i++) {
+            sb.append("data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"t").append(i).append(" \"}]}}]}\n\n");
+        }
+        sb.append("data: {\"usageMetadata\":{\"promptTokenCount\":3,\"candidatesTokenCount\":4,\"totalTokenCount\":7}}\n\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Upstream extends ByteArrayInputStream {
+        Upstream(byte[] body) {
+            super(body);
+        }
+
+        boolean drained() {
+            return pos == count;
+        }
+    }
+
+    private static final class Watcher implements EofSensorWatcher {
+        boolean aborted;
+        boolean eof;
+
+        @Override
+        public boolean eofDetected(InputStream wrapped) {
+            eof = true;
+            return true;
+        }
+
+        @Override
+        public boolean streamClosed(InputStream wrapped) {
+            return true;
+        }
+
+        @Override
+        public boolean streamAbort(InputStream wrapped) {
+            aborted = true;
+            return true;
+        }
+    }
+
+    @Test
+    void failingConsumerAbortsTheConnectionInsteadOfDraining() throws IOException {
+        Upstream upstream = new Upstream(sseBody(2000));
+        Watcher watcher = new Watcher();
+        EofSensorInputStream body = new EofSensorInputStream(upstream, watcher);
+        List<String> relayed = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> CloudAiServiceImpl.relay(body, chunk -> {
+            if (relayed.size() == 3) throw new IllegalStateException("client gone");
+            relayed.add(chunk);
+        }));
+
+        assertEquals(3, relayed.size());
+        assertTrue(watcher.aborted);
+        assertFalse(watcher.eof);
+        assertFalse(upstream.drained(), "upstream must not be read to EOF");
+        // The close RestTemplate performs afterwards finds nothing left to drain
+        body.close();
+        assertFalse(upstream.drained());
+    }
+
+    @Test
+    void completeStreamIsRelayedAndNotAborted() throws IOException {
+        Upstream upstream = new Upstream(sseBody(50));
+        Watcher watcher = new Watcher();
+        StringBuilder relayed = new StringBuilder();
+
+        GeminiCodec.Completion completion = CloudAiServiceImpl.relay(new EofSensorInputStream(upstream, watcher), relayed::append);
+
+        assertEquals(completion.text(), relayed.toString());
+        assertTrue(completion.text().startsWith("t0 t1 t2 "));
+        assertEquals(7, completion.usage().totalTokens());
+        assertTrue(watcher.eof);
+        assertFalse(watcher.aborted);
+    }
+}
@@ -0,0 +1,129 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.entity.Quiz;
+import com.extention.backend.exception.UpstreamThrottledException;
+import com.extention.backend.response.QuizJobStatus;
+import com.extention.backend.response.QuizJobStatus.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuizJobServiceImplTest {
+
+    private final QuizServiceImpl quizService = mock(QuizServiceImpl.class);
+    private final CountDownLatch upstream = new CountDownLatch(1);
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+    private QuizJobServiceImpl jobs;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        jobs = new QuizJobServiceImpl(quizService, executor, new SimpleMeterRegistry(), 1, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.countDown();
+        executor.shutdown();
+    }
+
+    // Stands in for a fetch/Gemini call that ignores interrupts until the upstream answers
+    private void blockUntilUpstreamAnswers() {
+        when(quizService.generateFromUrl(anyString(), anyString(), anyBoolean(), any(), any())).thenAnswer(inv -> {
+            entered.countDown();
+            while (true) {
+                try {
+                    if (upstream.await(5, TimeUnit.SECONDS)) break;
+                } catch (InterruptedException ignored) {
+                }
+            }
+            Runnable beforeSave = inv.getArgument(4);
+            beforeSave.run();
+            return Quiz.builder().id(42L).build();
+        });
+    }
+
+    private QuizJobStatus awaitTerminal(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            QuizJobStatus s = jobs.status("alice", jobId).orElseThrow();
+            if (s.stage().isTerminal() && executor.getActiveCount() == 0) return s;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job did not finish");
+    }
+
+    @Test
+    void cancelledJobKeepsItsSlotUntilTheWorkerStops() throws InterruptedException {
+        blockUntilUpstreamAnswers();
+        QuizJobStatus first = jobs.submit("alice", "https://example.com/a", false);
+        // Cancel only once the worker is upstream; before that, cancel() takes the queued path and frees the slot
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Stage.CANCELLED, jobs.cancel("alice", first.jobId()).orElseThrow().stage());
+        // The worker is still blocked upstream, so the per-user cap still counts it
+        assertThrows(UpstreamThrottledException.class, () -> jobs.submit("alice", "https://example.com/b", false));
+
+        upstream.countDown();
+        assertEquals(Stage.CANCELLED, awaitTerminal(first.jobId()).stage());
+        assertNotNull(jobs.submit("alice", "https://example.com/b", false));
+    }
+
+    @Test
+    void cancelledJobDoesNotSave() throws InterruptedException {
+        AtomicBoolean saved = new AtomicBoolean();
+        when(quizService.generateFromUrl(anyString(), anyString(), anyBoolean(), any(), any())).thenAnswer(inv -> {
+            upstream.await();
+            Runnable beforeSave = inv.getArgument(4);
+            beforeSave.run();
+            saved.set(true);
+            return Quiz.builder().id(42L).build();
+        });
+        QuizJobStatus job = jobs.submit("alice", "https://example.com/a", false);
+
+        jobs.cancel("alice", job.jobId());
+        upstream.countDown();
+
+        assertEquals(Stage.CANCELLED, awaitTerminal(job.jobId()).stage());
+        assertFalse(saved.get());
+    }
+
+    @Test
+    void cancelDuringSaveIsTooLate() throws InterruptedException {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(quizService.generateFromUrl(anyString(), anyString(), anyBoolean(), any(), any())).thenAnswer(inv -> {
+            Runnable beforeSave = inv.getArgument(4);
+            beforeSave.run();
+            saving.countDown();
+            cancelled.await();
+            return Quiz.builder().id(42L).build();
+        });
+        QuizJobStatus job = jobs.submit("alice", "https://example.com/a", false);
+
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Stage.CANCELLED, jobs.cancel("alice", job.jobId()).orElseThrow().stage());
+        cancelled.countDown();
+
+        QuizJobStatus done = awaitTerminal(job.jobId());
+        assertEquals(Stage.SAVED, done.stage());
+        assertEquals(Long.valueOf(42), done.quizId());
+    }
+}
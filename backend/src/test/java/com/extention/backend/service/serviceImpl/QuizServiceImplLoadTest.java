@@ -0,0 +1,123 @@
+package com.extention.backend.service.serviceImpl;
+
+import com.extention.backend.repository.QuizAttemptRepository;
+import com.extention.backend.repository.QuizRepository;
+import com.extention.backend.service.CloudAiService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * More quiz generations than there are pooled connections are parked in a slow Gemini call at once.
+ * None of them may hold a connection while they wait, so database-only reads keep going at full speed.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class QuizServiceImplLoadTest {
+
+    private static final int GENERATIONS = 12;
+
+    private static final String QUIZ_JSON = """
+            {"questions": [
+              {"question": "Q1?", "options": ["a", "b", "c", "d"], "correctIndex": 0, "explanation": "e"},
+              {"question": "Q2?", "options": ["a", "b", "c", "d"], "correctIndex": 1, "explanation": "e"},
+              {"question": "Q3?", "options": ["a", "b", "c", "d"], "correctIndex": 2, "explanation": "e"},
+              {"question": "Q4?", "options": ["a", "b", "c", "d"], "correctIndex": 3, "explanation": "e"},
+              {"question": "Q5?", "options": ["a", "b", "c", "d"], "correctIndex": 0, "explanation": "e"}
+            ]}""";
+
+    @MockitoBean
+    CloudAiService cloudAiService;
+
+    @Autowired
+    QuizServiceImpl quizService;
+
+    @Autowired
+    QuizRepository quizRepository;
+
+    @Autowired
+    QuizAttemptRepository attemptRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(GENERATIONS);
+    private final CountDownLatch inGemini = new CountDownLatch(GENERATIONS);
+    private final CountDownLatch geminiAnswers = new CountDownLatch(1);
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        geminiAnswers.countDown();
+        callers.shutdownNow();
+        quizRepository.deleteAllById(created);
+    }
+
+    private HikariPoolMXBean pool() throws SQLException {
+        return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+    }
+
+    @Test
+    void databaseReadsDoNotWaitOnSlowGeneration() throws Exception {
+        when(cloudAiService.callGeminiJson(anyString(), anyString())).thenAnswer(inv -> {
+            inGemini.countDown();
+            assertTrue(geminiAnswers.await(30, TimeUnit.SECONDS));
+            return QUIZ_JSON;
+        });
+
+        List<Future<Long>> generations = new ArrayList<>();
+        for (int i = 0; i < GENERATIONS; i++) {
+            String user = "load-user-" + i;
+            String text = "Article " + i + " about connection pools and slow upstream calls. ".repeat(20);
+            generations.add(callers.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, List.of()));
+                try {
+                    return quizService.generateFromText(text, "Load " + user, null, true);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        // Three times the pool size are inside Gemini at once; if any held a connection, the rest couldn't get here
+        assertTrue(inGemini.await(20, TimeUnit.SECONDS), "generations stuck before the Gemini call");
+        assertEquals(0, pool().getActiveConnections(), "connections held across the Gemini call");
+
+        for (int i = 0; i < 50; i++) {
+            long started = System.nanoTime();
+            attemptRepository.findRecent("load-user-0", Limit.of(20));
+            quizRepository.count();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertTrue(millis < 1_000, "read " + i + " took " + millis + " ms");
+        }
+        assertEquals(0, pool().getThreadsAwaitingConnection());
+
+        geminiAnswers.countDown();
+        for (Future<Long> f : generations) created.add(f.get(30, TimeUnit.SECONDS));
+        assertEquals(GENERATIONS, quizRepository.findAllById(created).size());
+    }
+}
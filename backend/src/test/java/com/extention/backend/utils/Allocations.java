@@ -0,0 +1,32 @@
+package com.extention.backend.utils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Heap bytes allocated by the current thread, for allocation regression tests. Allocation counts are
+ * deterministic enough to assert on, unlike wall-clock timings on a shared CI machine.
+ */
+public final class Allocations {
+
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Allocations() {}
+
+    // Cheapest of several runs after a warm-up, so one-off class loading and buffer setup don't count
+    public static long measure(Work work) throws Exception {
+        for (int i = 0; i < 20; i++) work.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            work.run();
+            best = Math.min(best, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+        return best;
+    }
+}
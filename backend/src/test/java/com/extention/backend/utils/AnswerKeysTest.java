@@ -0,0 +1,44 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.QuizPayload;
+import com.extention.backend.response.QuizPayload.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerKeysTest {
+
+    private static Question q(int correct) {
+        return new Question("q", List.of("a", "b", "c", "d"), correct, "");
+    }
+
+    @Test
+    void packsCorrectIndexesOneBytePerQuestion() {
+        byte[] key = AnswerKeys.of(new QuizPayload(List.of(q(0), q(3), q(-2), q(200))));
+        assertArrayEquals(new byte[]{0, 3, -1, -1}, key);
+        assertEquals(0, AnswerKeys.of(new QuizPayload(null)).length);
+    }
+
+    @Test
+    void legacyJsonGivesTheSameKey() throws Exception {
+        var json = new ObjectMapper().readTree("""
+                {"questions":[{"correctIndex":2},{"correctIndex":1},{}]}
+                """);
+        assertArrayEquals(new byte[]{2, 1, -1}, AnswerKeys.fromJson(json));
+        assertEquals(0, AnswerKeys.fromJson(new ObjectMapper().readTree("{}")).length);
+    }
+
+    @Test
+    void gradesMatchingAnswersOnly() {
+        byte[] key = AnswerKeys.pack(new int[]{1, 2, 3, -1});
+        assertEquals(2, AnswerKeys.grade(key, new int[]{1, 2, 0, -1}));
+        // Unanswered (-1) never matches a missing key entry
+        assertEquals(0, AnswerKeys.grade(key, new int[]{-1, -1, -1, -1}));
+        // Extra answers past the key, and a short answer list, are tolerated
+        assertEquals(3, AnswerKeys.grade(key, new int[]{1, 2, 3, 0, 1, 2}));
+        assertEquals(1, AnswerKeys.grade(key, new int[]{1}));
+    }
+}
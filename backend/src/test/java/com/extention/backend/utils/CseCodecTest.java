@@ -0,0 +1,103 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.SearchHit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CseCodecTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static List<SearchHit> read(String json) throws IOException {
+        return CseCodec.readItems(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsTitleLinkSnippetAndSkipsTheRest() throws IOException {
+        String json = """
+                {
+                  "kind": "customsearch#search",
+                  "queries": {"request": [{"title": "not an item", "count": 10}]},
+                  "items": [
+                    {"kind": "customsearch#result", "title": "First", "link": "https://a.example/1",
+                     "pagemap": {"metatags": [{"title": "nested title", "link": "nested"}], "cse_thumbnail": [{"src": "x"}]},
+                     "snippet": "One\\nsnippet"},
+                    {"title": "Second", "link": "https://b.example/2", "snippet": null, "htmlSnippet": "<b>2</b>"},
+                    "not an object",
+                    {"link": "https://c.example/3", "title": 42}
+                  ],
+                  "context": {"title": "engine"}
+                }
+                """;
+
+        assertEquals(List.of(
+                new SearchHit("First", "https://a.example/1", "One\nsnippet"),
+                new SearchHit("Second", "https://b.example/2", ""),
+                new SearchHit("", "https://c.example/3", "")
+        ), read(json));
+    }
+
+    @Test
+    void noItemsMeansNoHits() throws IOException {
+        assertTrue(read("{\"searchInformation\":{\"totalResults\":\"0\"}}").isEmpty());
+    }
+
+    @Test
+    void nonObjectIsRejected() {
+        assertThrows(IOException.class, () -> read("[]"));
+    }
+
+    // A full 10-result response as CSE returns it: pagemap metatags, thumbnails, structured data, queries
+    private static byte[] fixture() throws IOException {
+        try (InputStream in = CseCodecTest.class.getResourceAsStream("/cse/search-response.json")) {
+            return in.readAllBytes();
+        }
+    }
+
+    // The Map.class decode CseCodec replaced, kept as the allocation baseline
+    private static List<SearchHit> legacyRead(byte[] body) throws IOException {
+        Map<?, ?> root = MAPPER.readValue(body, Map.class);
+        List<SearchHit> hits = new ArrayList<>();
+        if (root.get("items") instanceof List<?> items) {
+            for (Object it : items) {
+                if (!(it instanceof Map<?, ?> m)) continue;
+                hits.add(new SearchHit(String.valueOf(m.get("title")), String.valueOf(m.get("link")),
+                        String.valueOf(m.get("snippet"))));
+            }
+        }
+        return hits;
+    }
+
+    @Test
+    void readsARealSizeResponse() throws IOException {
+        byte[] body = fixture();
+        List<SearchHit> hits = CseCodec.readItems(new ByteArrayInputStream(body));
+
+        assertEquals(10, hits.size());
+        assertEquals(new SearchHit("Sachin Tendulkar - Wikipedia", "https://en.wikipedia.org/wiki/Sachin_Tendulkar",
+                "Sachin Ramesh Tendulkar is an Indian former international cricketer who captained the Indian national team. "
+                        + "He is widely regarded as one of the greatest batsmen in the ..."), hits.get(0));
+        assertEquals(legacyRead(body), hits);
+    }
+
+    @Test
+    void skippingPagemapAllocatesFarLessThanAMap() throws Exception {
+        byte[] body = fixture();
+
+        long legacy = Allocations.measure(() -> legacyRead(body));
+        long codec = Allocations.measure(() -> CseCodec.readItems(new ByteArrayInputStream(body)));
+
+        // Only 30 strings are materialised; the Map decode builds every pagemap, metatag and thumbnail
+        assertTrue(codec * 5 < legacy, "codec " + codec + " vs legacy " + legacy);
+    }
+}
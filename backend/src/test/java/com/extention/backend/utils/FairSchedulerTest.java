@@ -0,0 +1,151 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.exception.UpstreamThrottledException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairSchedulerTest {
+
+    private static final long COST = 1000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final List<String> served = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private FairScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        if (scheduler != null) scheduler.shutdown();
+        callers.shutdownNow();
+    }
+
+    // One worker, parked on a gate job so everything submitted afterwards queues up
+    private void start(Map<String, Integer> weights, int maxQueueDepth) throws InterruptedException {
+        scheduler = new FairScheduler("test", 1, COST, maxQueueDepth, 1, weights, registry);
+        CountDownLatch running = new CountDownLatch(1);
+        callers.submit(() -> scheduler.run("gate", COST, () -> {
+            running.countDown();
+            await(gate);
+            return null;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+    }
+
+    private Future<?> submit(String user) throws InterruptedException {
+        double before = queued();
+        Future<?> f = callers.submit(() -> scheduler.run(user, COST, () -> served.add(user)));
+        // Wait for the job to be queued so submission order is deterministic
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queued() <= before) {
+            assertTrue(System.nanoTime() < deadline, "job for " + user + " never queued");
+            Thread.sleep(1);
+        }
+        return f;
+    }
+
+    private double queued() {
+        return registry.get("llm.scheduler.queued").gauge().value();
+    }
+
+    private void drain(List<Future<?>> futures) throws Exception {
+        gate.countDown();
+        for (Future<?> f : futures) f.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void backloggedUserDoesNotStarveALightOne() throws Exception {
+        start(Map.of(), 100);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) futures.add(submit("heavy"));
+        for (int i = 0; i < 2; i++) futures.add(submit("light"));
+        drain(futures);
+
+        // FIFO would run all four heavy jobs first; DRR alternates while both are backlogged
+        assertEquals(List.of("heavy", "light", "heavy", "light", "heavy", "heavy"), served);
+    }
+
+    @Test
+    void weightsGiveAProportionalShare() throws Exception {
+        start(Map.of("pro", 2), 100);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) futures.add(submit("pro"));
+        for (int i = 0; i < 3; i++) futures.add(submit("free"));
+        drain(futures);
+
+        assertEquals(List.of("pro", "pro", "free", "pro", "pro", "free", "pro", "pro", "free"), served);
+    }
+
+    @Test
+    void expensiveJobsWaitForEnoughCredit() throws Exception {
+        start(Map.of(), 100);
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(callers.submit(() -> scheduler.run("bulk", 3 * COST, () -> served.add("bulk"))));
+        while (queued() < 1) Thread.sleep(1);
+        for (int i = 0; i < 3; i++) futures.add(submit("chat"));
+        drain(futures);
+
+        // The 3-quantum job only runs once its user has earned three rounds of credit
+        assertEquals(List.of("chat", "chat", "bulk", "chat"), served);
+    }
+
+    @Test
+    void fullQueueIsRejected() throws Exception {
+        start(Map.of(), 1);
+        Future<?> first = submit("user");
+
+        assertThrows(UpstreamThrottledException.class, () -> scheduler.run("user", COST, () -> "x"));
+        // Other users have their own queue
+        Future<?> other = submit("other");
+        drain(List.of(first, other));
+    }
+
+    @Test
+    void workErrorsAreRethrownToTheCaller() {
+        scheduler = new FairScheduler("test", 1, COST, 10, 1, Map.of(), registry);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> scheduler.run("user", COST, () -> { throw new IllegalArgumentException("bad"); }));
+        assertEquals("bad", e.getMessage());
+        assertEquals("ok", scheduler.run("user", COST, () -> "ok"));
+    }
+
+    @Test
+    void waitTimeIsTaggedByWeightNotUser() {
+        scheduler = new FairScheduler("test", 1, COST, 10, 1, Map.of("alice", 3), registry);
+        scheduler.run("alice", COST, () -> "a");
+        scheduler.run("bob", COST, () -> "b");
+        scheduler.run("carol", COST, () -> "c");
+
+        List<String> weights = registry.find("llm.scheduler.wait").timers().stream()
+                .map(t -> t.getId().getTag("weight"))
+                .sorted()
+                .toList();
+        assertEquals(List.of("1", "3"), weights);
+        Timer standard = registry.get("llm.scheduler.wait").tag("weight", "1").timer();
+        assertEquals(2, standard.count());
+        assertEquals(1, registry.get("llm.scheduler.wait").tag("weight", "3").timer().count());
+    }
+}
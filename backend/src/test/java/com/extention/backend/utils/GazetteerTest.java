@@ -0,0 +1,54 @@
+package com.extention.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerTest {
+
+    private static Gazetteer load(String tsv) throws IOException {
+        return Gazetteer.load(new ByteArrayInputStream(tsv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> tokens(String text) {
+        return Arrays.asList(text.split(" "));
+    }
+
+    @Test
+    void matchesWholeWordsOnly() throws IOException {
+        Gazetteer g = load("india\tIN\nindiana\tUS\n");
+        assertEquals("US", g.bestRegion(tokens("born in indiana")));
+        assertEquals("IN", g.bestRegion(tokens("born in india")));
+        assertEquals("", g.bestRegion(tokens("born in indianapolis")));
+    }
+
+    @Test
+    void multiWordTermsAndTheirSuffixesBothVote() throws IOException {
+        Gazetteer g = load("new york\tUS\nyork\tGB\n");
+        // "new york" also ends the shorter term "york": one vote each, first seen wins the tie
+        assertEquals("US", g.bestRegion(tokens("moved to new york")));
+        assertEquals("GB", g.bestRegion(tokens("moved to york")));
+        assertEquals("GB", g.bestRegion(tokens("new york then york and york")));
+    }
+
+    @Test
+    void failLinksRecoverFromAPartialMatch() throws IOException {
+        Gazetteer g = load("a b c\tX\nb c d\tY\n");
+        assertEquals("Y", g.bestRegion(tokens("a b c d b c d")));
+        assertEquals("Y", g.bestRegion(tokens("a b x b c d")));
+        assertEquals("X", g.bestRegion(tokens("a b c")));
+    }
+
+    @Test
+    void commentsBlankAndMalformedLinesAreSkipped() throws IOException {
+        Gazetteer g = load("# header\n\nno tab here\n  paris \t FR \n");
+        assertEquals("FR", g.bestRegion(tokens("paris")));
+        assertEquals("", g.bestRegion(List.of()));
+    }
+}
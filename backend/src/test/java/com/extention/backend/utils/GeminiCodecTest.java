@@ -0,0 +1,152 @@
+package com.extention.backend.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiCodecTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ByteArrayInputStream utf8(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void requestEscapesPromptAndLeavesStreamOpen() throws IOException {
+        String prompt = "Line one\n\t\"quoted\" \\ back\u0001slash — ünïcode 😀";
+        boolean[] closed = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        GeminiCodec.writeRequest(out, prompt, null);
+
+        JsonNode body = MAPPER.readTree(out.toByteArray());
+        assertEquals(prompt, body.path("contents").get(0).path("parts").get(0).path("text").asText());
+        assertTrue(body.path("generationConfig").isMissingNode());
+        assertFalse(closed[0], "the HTTP client owns the request stream");
+    }
+
+    @Test
+    void requestCarriesJsonModeAndSchema() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeminiCodec.writeRequest(out, "p", "{\"type\":\"OBJECT\"}");
+
+        JsonNode config = MAPPER.readTree(out.toByteArray()).path("generationConfig");
+        assertEquals("application/json", config.path("responseMimeType").asText());
+        assertEquals("OBJECT", config.path("responseSchema").path("type").asText());
+    }
+
+    @Test
+    void responseKeepsFirstCandidateTextAndUsageOnly() throws IOException {
+        String json = """
+                {
+                  "candidates": [
+                    {"content": {"role": "model", "parts": [{"text": "Hello, "}, {"inlineData": {"data": "xx"}}, {"text": "world"}]},
+                     "finishReason": "STOP", "safetyRatings": [{"category": "x", "probability": "LOW"}]},
+                    {"content": {"parts": [{"text": "ignored"}]}}
+                  ],
+                  "usageMetadata": {"promptTokenCount": 11, "candidatesTokenCount": 3, "totalTokenCount": 14, "extra": {"a": 1}},
+                  "modelVersion": "gemini"
+                }
+                """;
+        GeminiCodec.Completion c = GeminiCodec.readResponse(utf8(json));
+        assertEquals("Hello, world", c.text());
+        assertEquals(new GeminiCodec.Usage(11, 3, 14), c.usage());
+    }
+
+    @Test
+    void blockedResponseHasNoText() throws IOException {
+        GeminiCodec.Completion c = GeminiCodec.readResponse(utf8("{\"promptFeedback\":{\"blockReason\":\"SAFETY\"}}"));
+        assertEquals("", c.text());
+        assertEquals(GeminiCodec.Usage.NONE, c.usage());
+    }
+
+    @Test
+    void nonObjectIsRejected() {
+        assertThrows(IOException.class, () -> GeminiCodec.readResponse(utf8("[1,2]")));
+    }
+
+    @Test
+    void streamRelaysChunksAndKeepsLastUsage() throws IOException {
+        String sse = """
+                data: {"candidates":[{"content":{"parts":[{"text":"Hel"}]}}],"usageMetadata":{"totalTokenCount":5}}
+
+                : keep-alive comment
+                data: {"candidates":[{"content":{"parts":[{"text":"lo"}]}}]}
+
+                data: {"candidates":[{"content":{"parts":[]}}],"usageMetadata":{"promptTokenCount":4,"candidatesTokenCount":2,"totalTokenCount":6}}
+                """;
+        List<String> chunks = new ArrayList<>();
+
+        GeminiCodec.Completion c = GeminiCodec.readStream(utf8(sse), chunks::add);
+
+        assertEquals(List.of("Hel", "lo"), chunks);
+        assertEquals("Hello", c.text());
+        assertEquals(new GeminiCodec.Usage(4, 2, 6), c.usage());
+    }
+
+    // The string-building encoder this codec replaced: two escaping passes, a format and a byte copy
+    private static void legacyWriteRequest(OutputStream out, String prompt) throws IOException {
+        String escaped = prompt.replace("\\", "\\\\").replace("\"", "\\\"");
+        String body = """
+                {
+                  "contents": [ { "parts": [ { "text": "%s" } ] } ]
+                }
+                """.formatted(escaped);
+        out.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String legacyReadResponse(byte[] body) throws IOException {
+        JsonNode root = MAPPER.readTree(new String(body, StandardCharsets.UTF_8));
+        return root.path("candidates").get(0).path("content").path("parts").path(0).path("text").asText();
+    }
+
+    @Test
+    void encodingA100KbPromptDoesNotCopyIt() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 100_000) sb.append("The \"quick\" brown fox\njumps over the lazy dog. \\ ");
+        String prompt = sb.toString();
+
+        long legacy = Allocations.measure(() -> legacyWriteRequest(OutputStream.nullOutputStream(), prompt));
+        long codec = Allocations.measure(() -> GeminiCodec.writeRequest(OutputStream.nullOutputStream(), prompt, null));
+
+        // The generator streams the prompt through its recycled buffers; the old path made several full copies
+        assertTrue(legacy > 4L * prompt.length(), "legacy allocated " + legacy);
+        assertTrue(codec < 16_384, "codec allocated " + codec);
+    }
+
+    @Test
+    void decodingAllocatesNoMoreThanATree() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 8_000) text.append("{\"question\":\"What happened next?\",\"answer\":2},");
+        String json = """
+                {"candidates": [{"content": {"role": "model", "parts": [{"text": %s}]}, "finishReason": "STOP",
+                  "safetyRatings": [{"category": "HARM_CATEGORY_HATE_SPEECH", "probability": "NEGLIGIBLE"},
+                                    {"category": "HARM_CATEGORY_DANGEROUS_CONTENT", "probability": "NEGLIGIBLE"}]}],
+                 "usageMetadata": {"promptTokenCount": 25000, "candidatesTokenCount": 2000, "totalTokenCount": 27000}}
+                """.formatted(MAPPER.writeValueAsString(text.toString()));
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        assertEquals(text.toString(), GeminiCodec.readResponse(new ByteArrayInputStream(body)).text());
+
+        long legacy = Allocations.measure(() -> legacyReadResponse(body));
+        long codec = Allocations.measure(() -> GeminiCodec.readResponse(new ByteArrayInputStream(body)));
+
+        // The text itself has to be materialised either way; the codec just skips the body String and the tree
+        assertTrue(codec <= legacy, "codec " + codec + " vs legacy " + legacy);
+    }
+}
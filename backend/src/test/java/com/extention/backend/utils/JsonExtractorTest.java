@@ -0,0 +1,46 @@
+package com.extention.backend.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonExtractorTest {
+
+    record Payload(String name, List<Integer> values) {}
+
+    @Test
+    void readsObjectWrappedInProseAndFences() {
+        String raw = "Sure! Here is the JSON:\n```json\n{\"name\":\"a\",\"values\":[1,2],\"extra\":true}\n```\nHope it helps.";
+        assertEquals(new Payload("a", List.of(1, 2)), JsonExtractor.read(raw, Payload.class));
+    }
+
+    @Test
+    void bracesInsideStringsDoNotEndTheObject() {
+        String raw = "{\"name\":\"a } tricky \\\" { one\",\"values\":[]}";
+        assertEquals("a } tricky \" { one", JsonExtractor.read(raw, Payload.class).name());
+        assertArrayEquals(new int[]{0, raw.length()}, JsonExtractor.nextObject(raw, 0));
+    }
+
+    @Test
+    void skipsProseBracesBeforeTheRealObject() {
+        String raw = "Use {placeholder} syntax. Result: {\"name\":\"b\",\"values\":[3]}";
+        assertEquals("b", JsonExtractor.read(raw, Payload.class).name());
+    }
+
+    @Test
+    void readTreeReturnsNode() {
+        JsonNode node = JsonExtractor.readTree("x {\"bullets\":[\"one\"]} y");
+        assertEquals("one", node.path("bullets").get(0).asText());
+    }
+
+    @Test
+    void failsWithoutABalancedObject() {
+        assertThrows(RuntimeException.class, () -> JsonExtractor.read("no json here", Payload.class));
+        assertThrows(RuntimeException.class, () -> JsonExtractor.read("{\"name\":\"unterminated\"", Payload.class));
+        assertThrows(RuntimeException.class, () -> JsonExtractor.read(null, Payload.class));
+        assertNull(JsonExtractor.nextObject("{ {", 0));
+    }
+}
@@ -0,0 +1,75 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.utils.MarkdownSegmenter.Segment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownSegmenterTest {
+
+    private static final String DOC = """
+            # Getting started
+
+            Install the tool. Then run it twice!
+            - First item here
+            > Quoted advice.
+
+            ```java
+            System.out.println("Do not translate me.");
+            ```
+
+                indented code stays put
+            1. Numbered step
+            | 42 | 7 |
+            Last line without newline""";
+
+    private static String join(List<Segment> segments) {
+        StringBuilder sb = new StringBuilder();
+        segments.forEach(s -> sb.append(s.text()));
+        return sb.toString();
+    }
+
+    private static List<String> translatable(List<Segment> segments) {
+        return segments.stream().filter(Segment::translatable).map(Segment::text).toList();
+    }
+
+    @Test
+    void concatenationGivesBackTheInputExactly() {
+        assertEquals(DOC, join(MarkdownSegmenter.segment(DOC)));
+        assertEquals("a\r\n\r\n  b ", join(MarkdownSegmenter.segment("a\r\n\r\n  b ")));
+    }
+
+    @Test
+    void onlySentencesAreTranslatable() {
+        assertEquals(List.of(
+                "Getting started",
+                "Install the tool.",
+                "Then run it twice!",
+                "First item here",
+                "Quoted advice.",
+                "Numbered step",
+                "Last line without newline"
+        ), translatable(MarkdownSegmenter.segment(DOC)));
+    }
+
+    @Test
+    void codeAndMarkersAreLiteral() {
+        List<Segment> segments = MarkdownSegmenter.segment(DOC);
+        for (Segment s : segments) {
+            if (s.text().contains("println") || s.text().contains("indented code") || s.text().contains("```")) {
+                assertFalse(s.translatable(), s.text());
+            }
+        }
+        assertTrue(segments.contains(new Segment("# ", false)));
+        assertTrue(segments.contains(new Segment("- ", false)));
+        assertTrue(segments.contains(new Segment("1. ", false)));
+    }
+
+    @Test
+    void emptyInput() {
+        assertTrue(MarkdownSegmenter.segment(null).isEmpty());
+        assertTrue(MarkdownSegmenter.segment("").isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.response.QuizPayload;
+import com.extention.backend.response.QuizPayload.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizValidatorTest {
+
+    private static Question q(String text, int correct, String... options) {
+        return new Question(text, options == null ? null : Arrays.asList(options), correct, " why ");
+    }
+
+    @Test
+    void validQuestionIsKeptTrimmed() {
+        Question fixed = QuizValidator.repair(q(" What? ", 2, "a", "b", " c ", "d"));
+        assertEquals(new Question("What?", List.of("a", "b", "c", "d"), 2, "why"), fixed);
+    }
+
+    @Test
+    void blankAndDuplicateOptionsAreDroppedAndTheIndexRemapped() {
+        Question fixed = QuizValidator.repair(q("Q", 4, "a", "", "A", "b", "c", "d"));
+        assertEquals(List.of("a", "b", "c", "d"), fixed.options());
+        assertEquals(2, fixed.correctIndex());
+    }
+
+    @Test
+    void correctAnswerAmongExtraOptionsIsKept() {
+        Question fixed = QuizValidator.repair(q("Q", 5, "a", "b", "c", "d", "e", "right"));
+        assertEquals(4, fixed.options().size());
+        assertEquals("right", fixed.options().get(fixed.correctIndex()));
+    }
+
+    @Test
+    void unfixableQuestionsAreDropped() {
+        assertNull(QuizValidator.repair(null));
+        assertNull(QuizValidator.repair(q(" ", 0, "a", "b", "c", "d")));
+        assertNull(QuizValidator.repair(q("Q", 0, (String[]) null)));
+        assertNull(QuizValidator.repair(q("Q", 0, "a", "b", "c")));
+        assertNull(QuizValidator.repair(q("Q", 0, "a", "a", "b", "c")));
+        // Never clamped: a guessed index would store a wrong answer key
+        assertNull(QuizValidator.repair(q("Q", 4, "a", "b", "c", "d")));
+        assertNull(QuizValidator.repair(q("Q", -1, "a", "b", "c", "d")));
+        assertNull(QuizValidator.repair(q("Q", 0, " ", "b", "c", "d")));
+    }
+
+    @Test
+    void mergeKeepsExistingSkipsRepeatsAndCaps() {
+        List<Question> keep = List.of(q("One", 0, "a", "b", "c", "d"));
+        List<Question> more = new ArrayList<>();
+        more.add(q("one ", 1, "a", "b", "c", "d"));
+        for (int i = 2; i <= 7; i++) more.add(q("Q" + i, 1, "a", "b", "c", "d"));
+        more.add(2, q("Broken", 9, "a", "b", "c", "d"));
+
+        List<Question> merged = QuizValidator.merge(keep, new QuizPayload(more));
+        assertEquals(QuizValidator.QUESTIONS, merged.size());
+        assertEquals(List.of("One", "Q2", "Q3", "Q4", "Q5"), merged.stream().map(Question::question).toList());
+    }
+
+    @Test
+    void mergeToleratesMissingPayload() {
+        assertTrue(QuizValidator.merge(List.of(), null).isEmpty());
+        assertTrue(QuizValidator.merge(List.of(), new QuizPayload(null)).isEmpty());
+    }
+}
@@ -0,0 +1,206 @@
+package com.extention.backend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentStoreTest {
+
+    private static final int SEGMENT = 4096;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] value(String s, int size) {
+        byte[] b = new byte[size];
+        byte[] p = s.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < size; i++) b[i] = p[i % p.length];
+        return b;
+    }
+
+    private static String text(SegmentStore store, String key) {
+        return store.get(key).map(b -> new String(b, StandardCharsets.UTF_8)).orElse(null);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    @Test
+    void putGetOverwriteAndRemove() {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertTrue(store.get("a").isEmpty());
+            store.put("a", "one".getBytes(StandardCharsets.UTF_8));
+            store.put("b", "two".getBytes(StandardCharsets.UTF_8));
+            store.put("a", "uno".getBytes(StandardCharsets.UTF_8));
+            assertEquals("uno", text(store, "a"));
+            assertEquals("two", text(store, "b"));
+            assertEquals(2, store.size());
+
+            store.remove("b");
+            assertNull(text(store, "b"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void recordLargerThanASegmentIsNotStored() {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            store.put("big", new byte[SEGMENT]);
+            assertTrue(store.get("big").isEmpty());
+        }
+    }
+
+    @Test
+    void reopensFromTheSavedIndex() {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            for (int i = 0; i < 50; i++) store.put("k" + i, value("v" + i, 100));
+            store.put("k7", "latest".getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(Files.exists(dir.resolve("index")));
+
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            // The index file is consumed on load so a later crash can't leave a stale one behind
+            assertFalse(Files.exists(dir.resolve("index")));
+            assertEquals(50, store.size());
+            assertEquals("latest", text(store, "k7"));
+            assertArrayEquals(value("v49", 100), store.get("k49").orElseThrow());
+        }
+    }
+
+    @Test
+    void rescansSegmentsWhenTheIndexIsMissing() throws IOException {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            for (int i = 0; i < 50; i++) store.put("k" + i, value("v" + i, 100));
+            store.put("k7", "latest".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.delete(dir.resolve("index"));
+
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertEquals(50, store.size());
+            // Later records win over earlier ones for the same key
+            assertEquals("latest", text(store, "k7"));
+        }
+    }
+
+    @Test
+    void corruptIndexFallsBackToScanning() throws IOException {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            store.put("a", "one".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(dir.resolve("index"), new byte[]{1, 2, 3});
+
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertEquals("one", text(store, "a"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedAndOverwritten() throws IOException {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            store.put("first", "kept".getBytes(StandardCharsets.UTF_8));
+            store.put("second", "torn".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.delete(dir.resolve("index"));
+        // Flip the last byte of the second record's value, as if the write was cut short
+        Path seg = segments().get(0);
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int firstLength = 16 + "first".length() + "kept".length();
+            int lastByte = firstLength + 16 + "second".length() + "torn".length() - 1;
+            ch.write(ByteBuffer.wrap(new byte[]{'X'}), lastByte);
+        }
+
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertEquals("kept", text(store, "first"));
+            assertNull(text(store, "second"));
+            // Appends resume where the valid data ends
+            store.put("third", "new".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.delete(dir.resolve("index"));
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertEquals("kept", text(store, "first"));
+            assertEquals("new", text(store, "third"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void garbageLengthsAtTheTailEndTheScan() throws IOException {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            store.put("first", "kept".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.delete(dir.resolve("index"));
+        // A header whose lengths sum past Integer.MAX_VALUE back into a small int
+        Path seg = segments().get(0);
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int tail = 16 + "first".length() + "kept".length();
+            ByteBuffer header = ByteBuffer.allocate(16)
+                    .putInt(0x50475331).putInt(0).putInt(Integer.MAX_VALUE).putInt(Integer.MAX_VALUE).flip();
+            ch.write(header, tail);
+        }
+
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 8 * SEGMENT)) {
+            assertEquals("kept", text(store, "first"));
+            assertEquals(1, store.size());
+            store.put("second", "new".getBytes(StandardCharsets.UTF_8));
+            assertEquals("new", text(store, "second"));
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreEvictedFirst() {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 4 * SEGMENT)) {
+            store.put("hot", value("h", 500));
+            for (int i = 0; i < 100; i++) {
+                store.put("k" + i, value("v", 500));
+                // Reading keeps it at the recent end of the LRU order
+                assertTrue(store.get("hot").isPresent(), "hot key evicted at " + i);
+            }
+            assertTrue(store.get("k0").isEmpty());
+            assertTrue(store.get("k99").isPresent());
+        }
+    }
+
+    @Test
+    void diskUseStaysWithinBudgetUnderChurn() throws IOException {
+        long budget = 4 * SEGMENT;
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, budget)) {
+            for (int i = 0; i < 2000; i++) {
+                store.put("k" + (i % 7), value("v" + i, 300));
+                assertTrue(store.diskBytes() <= budget + SEGMENT, "disk " + store.diskBytes() + " at " + i);
+            }
+            for (int k = 0; k < 7; k++) {
+                assertArrayEquals(value("v" + (1993 + k), 300), store.get("k" + ((1993 + k) % 7)).orElseThrow());
+            }
+        }
+        assertTrue(segments().size() <= 5);
+    }
+
+    @Test
+    void segmentFilesAreNamedInOrder() throws IOException {
+        try (SegmentStore store = new SegmentStore(dir, SEGMENT, 16 * SEGMENT)) {
+            for (int i = 0; i < 20; i++) store.put("k" + i, value("v", 1000));
+        }
+        List<String> names = segments().stream().map(p -> p.getFileName().toString()).toList();
+        assertTrue(names.size() > 1);
+        String[] sorted = names.toArray(String[]::new);
+        Arrays.sort(sorted);
+        assertEquals(List.of(sorted), names);
+        assertEquals("00000001.seg", names.get(0));
+    }
+}
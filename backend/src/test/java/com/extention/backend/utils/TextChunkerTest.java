@@ -0,0 +1,79 @@
+package com.extention.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextChunkerTest {
+
+    private static String paragraphs(int count, String prefix) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append("\n\n");
+            sb.append(prefix).append(' ').append(i).append(". ")
+                    .append("This paragraph talks about the topic at some length so that it has weight. ".repeat(3).strip());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void blankInputHasNoChunks() {
+        assertTrue(TextChunker.split(null, 100).isEmpty());
+        assertTrue(TextChunker.split("  \n\n ", 100).isEmpty());
+    }
+
+    @Test
+    void shortTextIsOneChunk() {
+        assertEquals(List.of("One paragraph.\n\nAnother."), TextChunker.split("  One paragraph.\n\n\nAnother.  ", 1000));
+    }
+
+    @Test
+    void chunksStayUnderBudgetAndKeepAllParagraphs() {
+        String text = paragraphs(60, "Section");
+        int maxTokens = 250;
+        List<String> chunks = TextChunker.split(text, maxTokens);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) assertTrue(chunk.length() <= maxTokens * 4, "chunk over budget");
+        // Split on paragraph boundaries only: joining the chunks gives the paragraphs back in order
+        assertEquals(text, String.join("\n\n", chunks));
+    }
+
+    @Test
+    void oversizedParagraphIsSplitOnSentencesThenHardCut() {
+        String sentence = "Sentence number something ends here. ";
+        String longSentence = "x".repeat(1000) + ".";
+        String text = sentence.repeat(60) + longSentence;
+        List<String> chunks = TextChunker.split(text, 50);
+
+        for (String chunk : chunks) assertTrue(chunk.length() <= 200);
+        assertTrue(chunks.stream().anyMatch(c -> c.startsWith("Sentence number")));
+        assertEquals(text.replace(" ", ""), String.join("", chunks).replace(" ", ""));
+    }
+
+    @Test
+    void editInOneParagraphLeavesDistantChunksIdentical() {
+        String original = paragraphs(80, "Part");
+        List<String> before = TextChunker.split(original, 300);
+        assertTrue(before.size() >= 4);
+
+        String edited = original.replace("Part 40. ", "Part 40, revised. ");
+        List<String> after = TextChunker.split(edited, 300);
+
+        // Content-defined boundaries: chunks away from the edit are byte-identical (and keep their cache keys)
+        List<String> unchanged = new ArrayList<>(before);
+        unchanged.retainAll(after);
+        assertTrue(unchanged.size() >= before.size() - 2, "edit moved " + (before.size() - unchanged.size()) + " chunks");
+        assertEquals(before.get(0), after.get(0));
+        assertEquals(before.get(before.size() - 1), after.get(after.size() - 1));
+    }
+
+    @Test
+    void estimateIsAboutFourCharsPerToken() {
+        assertEquals(0, TextChunker.estimateTokens(null));
+        assertEquals(26, TextChunker.estimateTokens("x".repeat(100)));
+    }
+}
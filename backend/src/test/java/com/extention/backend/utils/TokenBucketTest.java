@@ -0,0 +1,47 @@
+package com.extention.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long MINUTE = 60_000_000_000L;
+
+    @Test
+    void startsFullAndRefillsContinuously() {
+        TokenBucket bucket = new TokenBucket(60, 0);
+        assertEquals(0, bucket.nanosUntil(60, 0));
+
+        bucket.take(60, 0);
+        // One permit per second at 60/min
+        assertEquals(1_000_000_000L, bucket.nanosUntil(1, 0));
+        assertEquals(0, bucket.nanosUntil(1, 1_000_000_000L));
+        assertEquals(0, bucket.nanosUntil(60, MINUTE));
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 0);
+        bucket.take(10, 0);
+        // Idle for ten minutes still only refills one minute's worth
+        bucket.take(10, 10 * MINUTE);
+        assertTrue(bucket.nanosUntil(1, 10 * MINUTE) > 0);
+    }
+
+    @Test
+    void requestLargerThanCapacityWaitsForAFullBucketOnly() {
+        TokenBucket bucket = new TokenBucket(100, 0);
+        bucket.take(100, 0);
+        // A 1000-token prompt cannot fit in a 100 TPM bucket; it waits for a full bucket rather than forever
+        assertEquals(MINUTE, bucket.nanosUntil(1000, 0));
+    }
+
+    @Test
+    void zeroOrNegativeRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 0);
+        assertTrue(bucket.unlimited());
+        bucket.take(1_000_000, 0);
+        assertEquals(0, bucket.nanosUntil(1_000_000, 0));
+    }
+}
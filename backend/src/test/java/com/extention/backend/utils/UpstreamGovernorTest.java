@@ -0,0 +1,254 @@
+package com.extention.backend.utils;
+
+import com.extention.backend.config.GovernorProperties;
+import com.extention.backend.exception.UpstreamThrottledException;
+import com.extention.backend.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamGovernorTest {
+
+    private static final Duration OPEN = Duration.ofMillis(200);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static GovernorProperties.Limits limits(int rpm, int maxAttempts, Duration maxWait) {
+        return new GovernorProperties.Limits(rpm, 0, 4, maxWait, maxAttempts,
+                Duration.ofMillis(1), Duration.ofMillis(4), 3, OPEN);
+    }
+
+    private UpstreamGovernor governor(GovernorProperties.Limits limits) {
+        return new UpstreamGovernor("test", limits, registry);
+    }
+
+    private static HttpClientErrorException tooManyRequests(HttpHeaders headers, String body) {
+        return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                headers, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    private static HttpServerErrorException unavailable() {
+        return HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                new HttpHeaders(), new byte[0], StandardCharsets.UTF_8);
+    }
+
+    private static <T> T raise(RuntimeException e) {
+        throw e;
+    }
+
+    private double state() {
+        return registry.get("upstream.governor.circuit.state").gauge().value();
+    }
+
+    // ---------- retry ----------
+
+    @Test
+    void retriesTransientFailuresThenSucceeds() {
+        UpstreamGovernor governor = governor(limits(0, 3, Duration.ofSeconds(5)));
+        AtomicInteger calls = new AtomicInteger();
+
+        String out = governor.call(0, true, () -> calls.incrementAndGet() < 3 ? raise(unavailable()) : "ok");
+
+        assertEquals("ok", out);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, registry.get("upstream.governor.retries").counter().count());
+    }
+
+    @Test
+    void nonRetryableCallsAreAttemptedOnce() {
+        UpstreamGovernor governor = governor(limits(0, 3, Duration.ofSeconds(5)));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> governor.call(0, false, () -> { calls.incrementAndGet(); return raise(unavailable()); }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void clientErrorsPassThroughUntouched() {
+        UpstreamGovernor governor = governor(limits(0, 3, Duration.ofSeconds(5)));
+        AtomicInteger calls = new AtomicInteger();
+        HttpClientErrorException badRequest = HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+                new HttpHeaders(), new byte[0], StandardCharsets.UTF_8);
+
+        HttpClientErrorException e = assertThrows(HttpClientErrorException.class,
+                () -> governor.call(0, true, () -> { calls.incrementAndGet(); return raise(badRequest); }));
+        assertSame(badRequest, e);
+        assertEquals(1, calls.get());
+    }
+
+    // ---------- Retry-After ----------
+
+    @Test
+    void retryAfterSecondsHeaderIsHonored() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "7");
+
+        UpstreamThrottledException e = assertThrows(UpstreamThrottledException.class,
+                () -> governor.call(0, true, () -> raise(tooManyRequests(headers, ""))));
+        assertEquals(Duration.ofSeconds(7), e.getRetryAfter());
+    }
+
+    @Test
+    void retryAfterHttpDateHeaderIsHonored() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30)));
+
+        UpstreamThrottledException e = assertThrows(UpstreamThrottledException.class,
+                () -> governor.call(0, true, () -> raise(tooManyRequests(headers, ""))));
+        // The header has second precision, so allow for the time already elapsed
+        assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(28)) >= 0, e.getRetryAfter().toString());
+        assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(30)) <= 0, e.getRetryAfter().toString());
+    }
+
+    @Test
+    void geminiRetryDelayInTheBodyIsHonored() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        String body = """
+                {"error":{"code":429,"status":"RESOURCE_EXHAUSTED","details":[
+                  {"@type":"type.googleapis.com/google.rpc.RetryInfo","retryDelay":"12.5s"}]}}""";
+
+        UpstreamThrottledException e = assertThrows(UpstreamThrottledException.class,
+                () -> governor.call(0, true, () -> raise(tooManyRequests(new HttpHeaders(), body))));
+        assertEquals(Duration.ofSeconds(12), e.getRetryAfter());
+    }
+
+    @Test
+    void throttlingPausesOtherCallers() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofMillis(500)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+        assertThrows(UpstreamThrottledException.class,
+                () -> governor.call(0, true, () -> raise(tooManyRequests(headers, ""))));
+
+        // The pause outlasts this caller's maxWait, so it is rejected without reaching the upstream
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(UpstreamThrottledException.class, () -> governor.call(0, true, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+    }
+
+    // ---------- quota ----------
+
+    @Test
+    void requestsPastTheRateAreRejectedAtTheDeadline() {
+        UpstreamGovernor governor = governor(limits(2, 1, Duration.ofMillis(100)));
+        governor.call(0, true, () -> "a");
+        governor.call(0, true, () -> "b");
+
+        long started = System.nanoTime();
+        UpstreamThrottledException e = assertThrows(UpstreamThrottledException.class,
+                () -> governor.call(0, true, () -> "c"));
+        // The bucket refills in ~30s, far past the deadline, so the caller is turned away immediately
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(20)) > 0, e.getRetryAfter().toString());
+        assertEquals(1.0, registry.get("upstream.governor.rejected").tag("reason", "deadline").counter().count());
+    }
+
+    // ---------- circuit breaker ----------
+
+    private void trip(UpstreamGovernor governor) {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(UpstreamUnavailableException.class,
+                    () -> governor.call(0, false, () -> raise(new ResourceAccessException("connection refused"))));
+        }
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndFailsFast() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        trip(governor);
+        assertEquals(2.0, state());
+
+        AtomicInteger calls = new AtomicInteger();
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> governor.call(0, true, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertTrue(e.getRetryAfter().compareTo(OPEN) <= 0);
+        assertEquals(1.0, registry.get("upstream.governor.rejected").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 2; i++) {
+                assertThrows(UpstreamUnavailableException.class, () -> governor.call(0, false, () -> raise(unavailable())));
+            }
+            assertEquals("ok", governor.call(0, false, () -> "ok"));
+        }
+        assertEquals(0.0, state());
+    }
+
+    @Test
+    void halfOpenTrialClosesTheCircuitOnSuccess() throws Exception {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        trip(governor);
+        Thread.sleep(OPEN.toMillis() + 50);
+
+        assertEquals("ok", governor.call(0, false, () -> "ok"));
+        assertEquals(0.0, state());
+        assertEquals("again", governor.call(0, false, () -> "again"));
+    }
+
+    @Test
+    void halfOpenTrialReopensTheCircuitOnFailure() throws Exception {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        trip(governor);
+        Thread.sleep(OPEN.toMillis() + 50);
+
+        // One failure is enough while half-open
+        assertThrows(UpstreamUnavailableException.class, () -> governor.call(0, false, () -> raise(unavailable())));
+        assertEquals(2.0, state());
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(UpstreamUnavailableException.class, () -> governor.call(0, false, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void halfOpenAdmitsASingleTrial() throws Exception {
+        UpstreamGovernor governor = governor(limits(0, 1, Duration.ofSeconds(5)));
+        trip(governor);
+        Thread.sleep(OPEN.toMillis() + 50);
+
+        CountDownLatch inTrial = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> trial = CompletableFuture.supplyAsync(() -> governor.call(0, false, () -> {
+            inTrial.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "trial";
+        }));
+        assertTrue(inTrial.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, state());
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(UpstreamUnavailableException.class, () -> governor.call(0, false, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+
+        release.countDown();
+        assertEquals("trial", trial.get(5, TimeUnit.SECONDS));
+        assertEquals("after", governor.call(0, false, () -> "after"));
+    }
+}